@@ -0,0 +1,128 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the translation of the notifications of the inner adapter. Insertions and removals
+ * are measured in pairs, so that the state stays the same between invocations.
+ * <p>
+ * Moves across a section are not exactly undone by moving back, as the section sticks to the
+ * next item. Therefore the state is set up again for each iteration.
+ *
+ * @author Ruben Gees
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NotificationBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    int itemCount;
+
+    @Param({"1", "10"})
+    int headerFooterCount;
+
+    @Param({"0", "100"})
+    int sectionCount;
+
+    @Param({"1", "50"})
+    int rangeSize;
+
+    private final CountingCallback callback = new CountingCallback();
+
+    private PositionIndex<Long> positionIndex;
+    private int position;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final List<Long> headers = new ArrayList<>();
+        final List<Long> footers = new ArrayList<>();
+        final SectionIndex<Long> sections = new SectionIndex<>();
+
+        for (long i = 0; i < headerFooterCount; i++) {
+            headers.add(i);
+            footers.add(-i);
+        }
+
+        for (int i = 0; i < sectionCount; i++) {
+            sections.add((int) ((long) itemCount * i / sectionCount), (long) i);
+        }
+
+        positionIndex = new PositionIndex<>(headers, sections, footers);
+    }
+
+    @Benchmark
+    public int changed() {
+        positionIndex.dispatchChanged(nextPosition(), rangeSize, null, callback);
+
+        return callback.count;
+    }
+
+    @Benchmark
+    public int insertedAndRemoved() {
+        final int current = nextPosition();
+
+        positionIndex.dispatchInserted(current, rangeSize, callback);
+        positionIndex.dispatchRemoved(current, rangeSize, callback);
+
+        return callback.count;
+    }
+
+    @Benchmark
+    public int moved() {
+        final int current = nextPosition();
+        final int target = itemCount - rangeSize - current;
+
+        positionIndex.dispatchMoved(current, target, rangeSize, callback);
+        positionIndex.dispatchMoved(target, current, rangeSize, callback);
+
+        return callback.count;
+    }
+
+    private int nextPosition() {
+        position++;
+
+        if (position > itemCount - rangeSize) {
+            position = 0;
+        }
+
+        return position;
+    }
+
+    private static final class CountingCallback implements PositionIndex.UpdateCallback {
+
+        private int count;
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            this.count += count;
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            this.count += count;
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            count++;
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, final Object payload) {
+            this.count += count;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the lookups, which are done by the adapter for each bound position. The positions
+ * are walked through sequentially, like while scrolling.
+ *
+ * @author Ruben Gees
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionIndexBenchmark {
+
+    private static final int TYPE_HEADER = Integer.MIN_VALUE;
+    private static final int TYPE_FOOTER = Integer.MIN_VALUE + 1;
+    private static final int TYPE_ITEM = 0;
+
+    @Param({"100", "10000", "1000000"})
+    int itemCount;
+
+    @Param({"1", "10"})
+    int headerFooterCount;
+
+    @Param({"0", "100"})
+    int sectionCount;
+
+    private PositionIndex<Long> positionIndex;
+    private int totalCount;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        final List<Long> headers = new ArrayList<>();
+        final List<Long> footers = new ArrayList<>();
+        final SectionIndex<Long> sections = new SectionIndex<>();
+
+        for (long i = 0; i < headerFooterCount; i++) {
+            headers.add(i);
+            footers.add(-i);
+        }
+
+        for (int i = 0; i < sectionCount; i++) {
+            sections.add((int) ((long) itemCount * i / sectionCount), (long) i);
+        }
+
+        positionIndex = new PositionIndex<>(headers, sections, footers);
+        totalCount = positionIndex.getItemCount(itemCount);
+    }
+
+    /**
+     * The same lookups as done by EasyHeaderFooterAdapter#getItemViewType.
+     */
+    @Benchmark
+    public int getItemViewType() {
+        final int current = nextPosition();
+
+        if (positionIndex.isHeader(current)) {
+            return TYPE_HEADER;
+        } else if (positionIndex.isFooter(current, itemCount)) {
+            return TYPE_FOOTER;
+        } else if (positionIndex.getSectionIndex(current) >= 0) {
+            return TYPE_HEADER;
+        }
+
+        return TYPE_ITEM + positionIndex.getRealPosition(current, itemCount);
+    }
+
+    /**
+     * The same lookups as done by EasyHeaderFooterAdapter#getItemId.
+     */
+    @Benchmark
+    public long getItemId() {
+        final int current = nextPosition();
+        final Long decoration = positionIndex.getDecoration(current, itemCount);
+
+        if (decoration != null) {
+            return decoration;
+        }
+
+        return positionIndex.getRealPosition(current, itemCount);
+    }
+
+    @Benchmark
+    public int getRealPosition() {
+        return positionIndex.getRealPosition(nextPosition(), itemCount);
+    }
+
+    @Benchmark
+    public int findStickyPosition() {
+        return positionIndex.findStickyPosition(nextPosition());
+    }
+
+    private int nextPosition() {
+        position++;
+
+        if (position >= totalCount) {
+            position = 0;
+        }
+
+        return position;
+    }
+}
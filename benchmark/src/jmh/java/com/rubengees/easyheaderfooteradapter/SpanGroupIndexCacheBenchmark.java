@@ -0,0 +1,77 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the lookup of span group indices in a grid with full width headers and footers.
+ *
+ * @author Ruben Gees
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpanGroupIndexCacheBenchmark {
+
+    private static final int SPAN_COUNT = 3;
+
+    @Param({"100", "10000", "1000000"})
+    int itemCount;
+
+    @Param({"1", "10"})
+    int headerFooterCount;
+
+    private SpanGroupIndexCache cache;
+    private int totalCount;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        totalCount = itemCount + headerFooterCount * 2;
+
+        cache = new SpanGroupIndexCache(new SpanGroupIndexCache.SpanSizeProvider() {
+            @Override
+            public int getSpanSize(final int position) {
+                final boolean isDecoration = position < headerFooterCount
+                        || position >= headerFooterCount + itemCount;
+
+                return isDecoration ? SPAN_COUNT : 1;
+            }
+        });
+
+        // Fill the cache once, like after the first layout.
+        cache.getSpanGroupIndex(totalCount - 1, SPAN_COUNT);
+    }
+
+    /**
+     * Sequential lookups of a cached grid, like while scrolling.
+     */
+    @Benchmark
+    public int sequential() {
+        position++;
+
+        if (position >= totalCount) {
+            position = 0;
+        }
+
+        return cache.getSpanGroupIndex(position, SPAN_COUNT);
+    }
+
+    /**
+     * A lookup of the last position after a change near the end of the list.
+     */
+    @Benchmark
+    public int afterChangeNearEnd() {
+        cache.invalidateFrom(totalCount - headerFooterCount - 10);
+
+        return cache.getSpanGroupIndex(totalCount - 1, SPAN_COUNT);
+    }
+}
@@ -0,0 +1,388 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import java.util.Locale;
+
+/**
+ * {@link MetricsListener} which records the durations of creating and binding ViewHolders in
+ * histograms, per view type and per kind of item. Additionally, the notifications of the adapter
+ * are counted.
+ * <p>
+ * Recording a value takes constant time and does not allocate, except for the first value of a
+ * view type. The histograms use buckets with exponentially growing bounds, so percentiles are
+ * only accurate within a factor of two. Use {@link #dump()} to print the values in debug builds
+ * or read and {@link #reset()} them periodically to sample them in production.
+ *
+ * @author Ruben Gees
+ */
+public class AdapterMetrics implements MetricsListener {
+
+    private static final int KIND_COUNT = 4;
+    private static final String[] KIND_NAMES = {"header", "footer", "section", "item"};
+
+    private final SparseArray<Histogram> createHistograms = new SparseArray<>();
+    private final SparseArray<Histogram> bindHistograms = new SparseArray<>();
+    private final SparseIntArray kinds = new SparseIntArray();
+    private final Histogram[] createHistogramsByKind = new Histogram[KIND_COUNT];
+    private final Histogram[] bindHistogramsByKind = new Histogram[KIND_COUNT];
+
+    private long dataSetChangedCount;
+    private long itemRangeNotificationCount;
+    private long notifiedItemCount;
+
+    /**
+     * The constructor.
+     */
+    public AdapterMetrics() {
+        for (int i = 0; i < KIND_COUNT; i++) {
+            createHistogramsByKind[i] = new Histogram();
+            bindHistogramsByKind[i] = new Histogram();
+        }
+    }
+
+    @Override
+    public void onViewHolderCreated(final int viewType, @Kind final int kind,
+                                    final long durationNanos) {
+        record(createHistograms, viewType, kind, durationNanos);
+        createHistogramsByKind[kind].record(durationNanos);
+    }
+
+    @Override
+    public void onViewHolderBound(final int viewType, @Kind final int kind,
+                                  final long durationNanos) {
+        record(bindHistograms, viewType, kind, durationNanos);
+        bindHistogramsByKind[kind].record(durationNanos);
+    }
+
+    @Override
+    public void onDataSetChanged() {
+        dataSetChangedCount++;
+    }
+
+    @Override
+    public void onItemRangeNotified(final int itemCount) {
+        itemRangeNotificationCount++;
+        notifiedItemCount += itemCount;
+    }
+
+    /**
+     * Returns the histogram of the creation durations of the specified view type.
+     *
+     * @param viewType The view type.
+     * @return The histogram or null if no ViewHolder of that type has been created.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public Histogram getCreateHistogram(final int viewType) {
+        return createHistograms.get(viewType);
+    }
+
+    /**
+     * Returns the histogram of the binding durations of the specified view type.
+     *
+     * @param viewType The view type.
+     * @return The histogram or null if no ViewHolder of that type has been bound.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public Histogram getBindHistogram(final int viewType) {
+        return bindHistograms.get(viewType);
+    }
+
+    /**
+     * Returns the histogram of the creation durations of all ViewHolders of the specified kind.
+     *
+     * @param kind The kind.
+     * @return The histogram.
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public Histogram getCreateHistogramForKind(@Kind final int kind) {
+        return createHistogramsByKind[kind];
+    }
+
+    /**
+     * Returns the histogram of the binding durations of all ViewHolders of the specified kind.
+     *
+     * @param kind The kind.
+     * @return The histogram.
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public Histogram getBindHistogramForKind(@Kind final int kind) {
+        return bindHistogramsByKind[kind];
+    }
+
+    /**
+     * Returns the amount of created ViewHolders of the specified kind. This is useful to check
+     * the recycling efficiency, for example to assert that headers are not created again while
+     * scrolling.
+     *
+     * @param kind The kind.
+     * @return The count.
+     */
+    @SuppressWarnings("unused")
+    public long getCreateCount(@Kind final int kind) {
+        return createHistogramsByKind[kind].getCount();
+    }
+
+    /**
+     * Returns the amount of created ViewHolders of all kinds.
+     *
+     * @return The count.
+     */
+    @SuppressWarnings("unused")
+    public long getTotalCreateCount() {
+        return sumCounts(createHistogramsByKind);
+    }
+
+    /**
+     * Returns how often ViewHolders of the specified kind have been bound.
+     *
+     * @param kind The kind.
+     * @return The count.
+     */
+    @SuppressWarnings("unused")
+    public long getBindCount(@Kind final int kind) {
+        return bindHistogramsByKind[kind].getCount();
+    }
+
+    /**
+     * Returns how often ViewHolders of all kinds have been bound.
+     *
+     * @return The count.
+     */
+    @SuppressWarnings("unused")
+    public long getTotalBindCount() {
+        return sumCounts(bindHistogramsByKind);
+    }
+
+    /**
+     * Returns how often the adapter notified that the whole data set changed.
+     *
+     * @return The count.
+     */
+    @SuppressWarnings("unused")
+    public long getDataSetChangedCount() {
+        return dataSetChangedCount;
+    }
+
+    /**
+     * Returns how often the adapter notified about a range of items.
+     *
+     * @return The count.
+     */
+    @SuppressWarnings("unused")
+    public long getItemRangeNotificationCount() {
+        return itemRangeNotificationCount;
+    }
+
+    /**
+     * Returns the total amount of items affected by notifications about ranges of items.
+     *
+     * @return The count.
+     */
+    @SuppressWarnings("unused")
+    public long getNotifiedItemCount() {
+        return notifiedItemCount;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    @SuppressWarnings("unused")
+    public void reset() {
+        createHistograms.clear();
+        bindHistograms.clear();
+        kinds.clear();
+
+        for (int i = 0; i < KIND_COUNT; i++) {
+            createHistogramsByKind[i].clear();
+            bindHistogramsByKind[i].clear();
+        }
+
+        dataSetChangedCount = 0;
+        itemRangeNotificationCount = 0;
+        notifiedItemCount = 0;
+    }
+
+    /**
+     * Returns a human readable summary of all recorded values.
+     *
+     * @return The summary.
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public String dump() {
+        final StringBuilder result = new StringBuilder();
+
+        result.append("Notifications: ").append(dataSetChangedCount).append(" data set changed, ")
+                .append(itemRangeNotificationCount).append(" ranges with ")
+                .append(notifiedItemCount).append(" items\n");
+
+        dump(result, "Create", createHistogramsByKind, createHistograms);
+        dump(result, "Bind", bindHistogramsByKind, bindHistograms);
+
+        return result.toString();
+    }
+
+    private long sumCounts(final Histogram[] histograms) {
+        long result = 0;
+
+        for (final Histogram histogram : histograms) {
+            result += histogram.getCount();
+        }
+
+        return result;
+    }
+
+    private void record(final SparseArray<Histogram> histograms, final int viewType,
+                        final int kind, final long durationNanos) {
+        Histogram histogram = histograms.get(viewType);
+
+        if (histogram == null) {
+            histogram = new Histogram();
+
+            histograms.put(viewType, histogram);
+            kinds.put(viewType, kind);
+        }
+
+        histogram.record(durationNanos);
+    }
+
+    private void dump(final StringBuilder builder, final String name,
+                      final Histogram[] histogramsByKind, final SparseArray<Histogram> histograms) {
+        builder.append(name).append(":\n");
+
+        for (int i = 0; i < KIND_COUNT; i++) {
+            if (histogramsByKind[i].getCount() > 0) {
+                builder.append("  ").append(KIND_NAMES[i]).append(": ")
+                        .append(histogramsByKind[i]).append('\n');
+            }
+        }
+
+        for (int i = 0; i < histograms.size(); i++) {
+            final int viewType = histograms.keyAt(i);
+
+            builder.append("    type ").append(viewType).append(" (")
+                    .append(KIND_NAMES[kinds.get(viewType)]).append("): ")
+                    .append(histograms.valueAt(i)).append('\n');
+        }
+    }
+
+    /**
+     * Histogram of durations. Bucket i contains all durations of at least 2^i and less than
+     * 2^(i + 1) nanoseconds.
+     */
+    public static final class Histogram {
+
+        private static final int BUCKET_COUNT = 64;
+
+        private final long[] buckets = new long[BUCKET_COUNT];
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        /**
+         * Returns the amount of recorded durations.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the sum of all recorded durations.
+         *
+         * @return The sum in nanoseconds.
+         */
+        @SuppressWarnings("unused")
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Returns the longest recorded duration.
+         *
+         * @return The duration in nanoseconds.
+         */
+        @SuppressWarnings("unused")
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the average of all recorded durations.
+         *
+         * @return The average in nanoseconds or 0 if nothing has been recorded.
+         */
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * Returns the amount of durations in the specified bucket.
+         *
+         * @param bucket The index of the bucket.
+         * @return The count.
+         */
+        @SuppressWarnings("unused")
+        public long getBucketCount(final int bucket) {
+            return buckets[bucket];
+        }
+
+        /**
+         * Returns an upper bound of the specified percentile. It is at most twice as large as the
+         * exact value.
+         *
+         * @param percentile The percentile, between 0 and 100.
+         * @return The upper bound in nanoseconds or 0 if nothing has been recorded.
+         */
+        public long getPercentileNanos(final double percentile) {
+            final long threshold = (long) Math.ceil(count * percentile / 100d);
+            long seen = 0;
+
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[i];
+
+                if (seen >= threshold && seen > 0) {
+                    return i >= BUCKET_COUNT - 2 ? maxNanos : Math.min(maxNanos, 1L << (i + 1));
+                }
+            }
+
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "count=%d mean=%dus p50<=%dus p90<=%dus p99<=%dus "
+                            + "max=%dus", count, getMeanNanos() / 1000,
+                    getPercentileNanos(50) / 1000, getPercentileNanos(90) / 1000,
+                    getPercentileNanos(99) / 1000, maxNanos / 1000);
+        }
+
+        void record(final long durationNanos) {
+            final long value = Math.max(durationNanos, 1);
+
+            buckets[63 - Long.numberOfLeadingZeros(value)]++;
+            count++;
+            totalNanos += value;
+            maxNanos = Math.max(maxNanos, value);
+        }
+
+        void clear() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = 0;
+            }
+
+            count = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+        }
+    }
+}
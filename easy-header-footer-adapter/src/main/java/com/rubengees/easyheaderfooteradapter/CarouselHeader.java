@@ -0,0 +1,115 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Helper for a horizontal RecyclerView, which is used as a header or footer of an
+ * {@link EasyHeaderFooterAdapter}.
+ * <p>
+ * The carousel uses the passed {@link RecyclerView.RecycledViewPool}, so that multiple carousels
+ * share their ViewHolders. The initial prefetch item count of its LayoutManager is set, which
+ * allows the outer RecyclerView to prefetch the items of the carousel before it is scrolled into
+ * view. The scroll state of the carousel is saved when it is detached and restored if it has
+ * lost its children in the meantime, for example because its data has been reset.
+ * <p>
+ * Add the carousel through {@link #getRecyclerView()} to the adapter.
+ *
+ * @author Ruben Gees
+ */
+public class CarouselHeader {
+
+    /**
+     * The default amount of items prefetched before the carousel is shown.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_INITIAL_PREFETCH_ITEM_COUNT = 4;
+
+    private final RecyclerView recyclerView;
+
+    private Parcelable savedState;
+
+    /**
+     * The constructor. The carousel keeps its own pool and prefetches
+     * {@link #DEFAULT_INITIAL_PREFETCH_ITEM_COUNT} items.
+     *
+     * @param recyclerView The RecyclerView of the carousel. It needs to have a LayoutManager.
+     */
+    @SuppressWarnings("unused")
+    public CarouselHeader(@NonNull final RecyclerView recyclerView) {
+        this(recyclerView, null, DEFAULT_INITIAL_PREFETCH_ITEM_COUNT);
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param recyclerView             The RecyclerView of the carousel. It needs to have a
+     *                                 LayoutManager.
+     * @param recycledViewPool         The pool to share with other carousels or null to keep the
+     *                                 own pool.
+     * @param initialPrefetchItemCount The amount of items to prefetch before the carousel is
+     *                                 shown. This only applies to a {@link LinearLayoutManager}.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public CarouselHeader(@NonNull final RecyclerView recyclerView,
+                          @Nullable final RecyclerView.RecycledViewPool recycledViewPool,
+                          final int initialPrefetchItemCount) {
+        if (recyclerView.getLayoutManager() == null) {
+            throw new IllegalArgumentException("The RecyclerView needs to have a LayoutManager.");
+        }
+
+        this.recyclerView = recyclerView;
+
+        if (recycledViewPool != null) {
+            recyclerView.setRecycledViewPool(recycledViewPool);
+        }
+
+        if (recyclerView.getLayoutManager() instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) recyclerView.getLayoutManager())
+                    .setInitialPrefetchItemCount(initialPrefetchItemCount);
+        }
+
+        recyclerView.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(final View view) {
+                restoreState();
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(final View view) {
+                saveState();
+            }
+        });
+    }
+
+    /**
+     * Returns the RecyclerView of the carousel, which is to be added as a header or footer.
+     *
+     * @return The RecyclerView.
+     */
+    @NonNull
+    public RecyclerView getRecyclerView() {
+        return recyclerView;
+    }
+
+    private void saveState() {
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+        savedState = layoutManager == null ? null : layoutManager.onSaveInstanceState();
+    }
+
+    private void restoreState() {
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+        // Restoring forces a new layout, which is only worth it if the children are gone anyway.
+        if (savedState != null && layoutManager != null && layoutManager.getChildCount() == 0) {
+            layoutManager.onRestoreInstanceState(savedState);
+        }
+
+        savedState = null;
+    }
+}
@@ -0,0 +1,321 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An adapter which concatenates multiple adapters. Positions are mapped to the adapters through
+ * a prefix array of their item counts, which is updated from their notifications and searched
+ * with a binary search.
+ * <p>
+ * The view types and stable ids of each adapter are remapped to separate ranges, so that they
+ * never collide between the adapters. The index of the adapter is stored in the highest bits
+ * below the sign bit, which keeps the results positive and the same for each composition of
+ * adapters. View types keep their sign and as many of their lowest bits as fit and must be unique
+ * in them. Ids keep their lowest bits in the same way.
+ * <p>
+ * This is used by the {@link EasyHeaderFooterAdapter} if it is constructed with multiple
+ * adapters.
+ *
+ * @author Ruben Gees
+ */
+public class CompositeAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    private final List<RecyclerView.Adapter> adapters;
+
+    private final int[] itemCounts;
+    private final int[] offsets;
+
+    private final ChildAdapterDataObserver[] childObservers;
+    private int observerCount;
+
+    private final int indexBits;
+    private final SparseIntArray globalViewTypeToLocal = new SparseIntArray();
+
+    /**
+     * The constructor.
+     *
+     * @param adapters The adapters to concatenate, in the order they should be shown.
+     */
+    public CompositeAdapter(@NonNull final List<? extends RecyclerView.Adapter> adapters) {
+        final int adapterCount = adapters.size();
+        boolean hasStableIds = true;
+
+        this.adapters = Collections.unmodifiableList(new ArrayList<>(adapters));
+        this.itemCounts = new int[adapterCount];
+        this.offsets = new int[adapterCount + 1];
+        this.indexBits = adapterCount <= 1 ? 0
+                : Integer.SIZE - Integer.numberOfLeadingZeros(adapterCount - 1);
+        this.childObservers = new ChildAdapterDataObserver[adapterCount];
+
+        for (int i = 0; i < adapterCount; i++) {
+            final RecyclerView.Adapter adapter = adapters.get(i);
+
+            itemCounts[i] = adapter.getItemCount();
+            childObservers[i] = new ChildAdapterDataObserver(i);
+            hasStableIds = hasStableIds && adapter.hasStableIds();
+        }
+
+        updateOffsets(0);
+        setHasStableIds(hasStableIds);
+    }
+
+    @Override
+    public void registerAdapterDataObserver(final RecyclerView.AdapterDataObserver observer) {
+        super.registerAdapterDataObserver(observer);
+
+        // The adapters are only observed while someone observes this adapter. Changes in between
+        // are not known, so the counts are queried again.
+        if (observerCount++ == 0) {
+            for (int i = 0; i < adapters.size(); i++) {
+                itemCounts[i] = adapters.get(i).getItemCount();
+
+                adapters.get(i).registerAdapterDataObserver(childObservers[i]);
+            }
+
+            updateOffsets(0);
+        }
+    }
+
+    @Override
+    public void unregisterAdapterDataObserver(final RecyclerView.AdapterDataObserver observer) {
+        super.unregisterAdapterDataObserver(observer);
+
+        if (--observerCount == 0) {
+            for (int i = 0; i < adapters.size(); i++) {
+                adapters.get(i).unregisterAdapterDataObserver(childObservers[i]);
+            }
+        }
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(final RecyclerView recyclerView) {
+        for (int i = 0; i < adapters.size(); i++) {
+            adapters.get(i).onAttachedToRecyclerView(recyclerView);
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(final RecyclerView recyclerView) {
+        for (int i = 0; i < adapters.size(); i++) {
+            adapters.get(i).onDetachedFromRecyclerView(recyclerView);
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(final RecyclerView.ViewHolder holder) {
+        //noinspection unchecked
+        getAdapterForHolder(holder).onViewAttachedToWindow(holder);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(final RecyclerView.ViewHolder holder) {
+        //noinspection unchecked
+        getAdapterForHolder(holder).onViewDetachedFromWindow(holder);
+    }
+
+    @Override
+    public void onViewRecycled(final RecyclerView.ViewHolder holder) {
+        //noinspection unchecked
+        getAdapterForHolder(holder).onViewRecycled(holder);
+    }
+
+    @Override
+    public boolean onFailedToRecycleView(final RecyclerView.ViewHolder holder) {
+        //noinspection unchecked
+        return getAdapterForHolder(holder).onFailedToRecycleView(holder);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(final ViewGroup parent, final int viewType) {
+        final RecyclerView.Adapter adapter = adapters.get(getAdapterIndexForViewType(viewType));
+
+        return adapter.onCreateViewHolder(parent, globalViewTypeToLocal.get(viewType));
+    }
+
+    @Override
+    public void onBindViewHolder(final RecyclerView.ViewHolder holder, final int position,
+                                 final List<Object> payloads) {
+        final int adapterIndex = getAdapterIndex(position);
+
+        //noinspection unchecked
+        adapters.get(adapterIndex).onBindViewHolder(holder, position - offsets[adapterIndex],
+                payloads);
+    }
+
+    @Override
+    public void onBindViewHolder(final RecyclerView.ViewHolder holder, final int position) {
+        final int adapterIndex = getAdapterIndex(position);
+
+        //noinspection unchecked
+        adapters.get(adapterIndex).onBindViewHolder(holder, position - offsets[adapterIndex]);
+    }
+
+    @Override
+    public int getItemCount() {
+        return offsets[adapters.size()];
+    }
+
+    @Override
+    public int getItemViewType(final int position) {
+        final int adapterIndex = getAdapterIndex(position);
+        final int localViewType = adapters.get(adapterIndex)
+                .getItemViewType(position - offsets[adapterIndex]);
+        final int localBits = Integer.SIZE - 2 - indexBits;
+        final int viewType = (adapterIndex << (localBits + 1))
+                | ((localViewType >>> (Integer.SIZE - 1)) << localBits)
+                | (localViewType & ((1 << localBits) - 1));
+        final int index = globalViewTypeToLocal.indexOfKey(viewType);
+
+        // The dropped bits are needed to create the ViewHolder, so remember them.
+        if (index < 0) {
+            globalViewTypeToLocal.put(viewType, localViewType);
+        } else if (globalViewTypeToLocal.valueAt(index) != localViewType) {
+            throw new IllegalStateException("The view types " + localViewType + " and "
+                    + globalViewTypeToLocal.valueAt(index) + " of the adapter at index "
+                    + adapterIndex + " only differ in their highest bits.");
+        }
+
+        return viewType;
+    }
+
+    @Override
+    public long getItemId(final int position) {
+        final int adapterIndex = getAdapterIndex(position);
+        final long localId = adapters.get(adapterIndex)
+                .getItemId(position - offsets[adapterIndex]);
+        final int localBits = Long.SIZE - 1 - indexBits;
+
+        return ((long) adapterIndex << localBits) | (localId & ((1L << localBits) - 1));
+    }
+
+    /**
+     * Returns the concatenated adapters.
+     *
+     * @return The adapters.
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public List<RecyclerView.Adapter> getAdapters() {
+        return adapters;
+    }
+
+    /**
+     * Returns the index of the adapter, which contains the item at the specified position.
+     *
+     * @param position The position in this adapter.
+     * @return The index of the adapter.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getAdapterIndex(final int position) {
+        // Find the last adapter starting at or before the position. Empty adapters share their
+        // offset with the next one, so this always finds the adapter actually containing it.
+        int low = 0;
+        int high = adapters.size() - 1;
+
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+
+            if (offsets[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the position of the item in the adapter containing it.
+     *
+     * @param position The position in this adapter.
+     * @return The position in the adapter containing the item.
+     */
+    @SuppressWarnings("unused")
+    public int getLocalPosition(final int position) {
+        return position - offsets[getAdapterIndex(position)];
+    }
+
+    private RecyclerView.Adapter getAdapterForHolder(final RecyclerView.ViewHolder holder) {
+        return adapters.get(getAdapterIndexForViewType(holder.getItemViewType()));
+    }
+
+    private int getAdapterIndexForViewType(final int viewType) {
+        return viewType >>> (Integer.SIZE - 1 - indexBits);
+    }
+
+    private void updateOffsets(final int fromAdapterIndex) {
+        for (int i = fromAdapterIndex; i < itemCounts.length; i++) {
+            offsets[i + 1] = offsets[i] + itemCounts[i];
+        }
+    }
+
+    private class ChildAdapterDataObserver extends RecyclerView.AdapterDataObserver {
+
+        private final int adapterIndex;
+
+        ChildAdapterDataObserver(final int adapterIndex) {
+            this.adapterIndex = adapterIndex;
+        }
+
+        @Override
+        public void onChanged() {
+            itemCounts[adapterIndex] = adapters.get(adapterIndex).getItemCount();
+
+            updateOffsets(adapterIndex);
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onItemRangeChanged(final int positionStart, final int itemCount) {
+            notifyItemRangeChanged(offsets[adapterIndex] + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(final int positionStart, final int itemCount,
+                                       final Object payload) {
+            notifyItemRangeChanged(offsets[adapterIndex] + positionStart, itemCount, payload);
+        }
+
+        @Override
+        public void onItemRangeInserted(final int positionStart, final int itemCount) {
+            itemCounts[adapterIndex] += itemCount;
+
+            updateOffsets(adapterIndex);
+            notifyItemRangeInserted(offsets[adapterIndex] + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(final int positionStart, final int itemCount) {
+            itemCounts[adapterIndex] -= itemCount;
+
+            updateOffsets(adapterIndex);
+            notifyItemRangeRemoved(offsets[adapterIndex] + positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(final int fromPosition, final int toPosition,
+                                     final int itemCount) {
+            final int from = offsets[adapterIndex] + fromPosition;
+            final int to = offsets[adapterIndex] + toPosition;
+
+            // See PositionIndex#dispatchMoved for why ranges are split up.
+            if (from < to) {
+                for (int i = 0; i < itemCount; i++) {
+                    notifyItemMoved(from, to + itemCount - 1);
+                }
+            } else {
+                for (int i = 0; i < itemCount; i++) {
+                    notifyItemMoved(from + i, to + i);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Binder for a header, footer or section, which is shown through a ViewHolder instead of a long
+ * lived View. The ViewHolder is created and bound like the ones of a regular adapter, so it can
+ * be recycled while the header is not shown and the adapter does not keep any View alive.
+ * <p>
+ * Each binder gets its own view type. Use the same binder instance for all adapters which share
+ * a {@link RecyclerView.RecycledViewPool} and a {@link ViewTypeAllocator}, to let them reuse the
+ * ViewHolders of each other.
+ *
+ * @param <VH> The type of the ViewHolder.
+ * @author Ruben Gees
+ */
+public abstract class DecorationBinder<VH extends RecyclerView.ViewHolder> {
+
+    private final Map<ViewTypeAllocator, Integer> viewTypes = new WeakHashMap<>();
+
+    /**
+     * Creates the ViewHolder.
+     *
+     * @param parent The parent.
+     * @return The ViewHolder.
+     */
+    @NonNull
+    public abstract VH onCreateViewHolder(@NonNull ViewGroup parent);
+
+    /**
+     * Binds the current data to the ViewHolder.
+     *
+     * @param holder The ViewHolder.
+     */
+    public abstract void onBindViewHolder(@NonNull VH holder);
+
+    /**
+     * Binds the current data to the ViewHolder with the payloads passed to
+     * {@link EasyHeaderFooterAdapter#notifyHeaderChanged(int, Object)} and
+     * {@link EasyHeaderFooterAdapter#notifyFooterChanged(int, Object)}. The default
+     * implementation ignores them and does a full bind.
+     *
+     * @param holder   The ViewHolder.
+     * @param payloads The payloads, which might be empty.
+     */
+    public void onBindViewHolder(@NonNull final VH holder, @NonNull final List<Object> payloads) {
+        onBindViewHolder(holder);
+    }
+
+    /**
+     * Called when the ViewHolder is recycled. Release large resources like images here.
+     *
+     * @param holder The ViewHolder.
+     */
+    public void onViewRecycled(@NonNull final VH holder) {
+    }
+
+    /**
+     * Returns the view type of this binder for the specified allocator and allocates it if
+     * needed.
+     *
+     * @param allocator The allocator of the adapter.
+     * @return The view type.
+     */
+    int getViewType(@NonNull final ViewTypeAllocator allocator) {
+        Integer result = viewTypes.get(allocator);
+
+        if (result == null) {
+            result = allocator.allocate();
+
+            viewTypes.put(allocator, result);
+        }
+
+        return result;
+    }
+}
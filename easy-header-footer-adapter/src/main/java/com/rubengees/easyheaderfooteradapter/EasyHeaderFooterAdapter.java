@@ -1,36 +1,128 @@
 package com.rubengees.easyheaderfooteradapter;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.util.BatchingListUpdateCallback;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.GridLayoutManager.SpanSizeLookup;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A simple to use adapter for the RecyclerView. It decorates an existing adapter with the ability
- * to set any View as header, footer or both.
+ * to set any number of Views as headers, footers or both. Additionally, sections can be inserted
+ * between the items of the existing adapter.
  *
  * @author Ruben Gees
  */
 public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
-    private static final int TYPE_HEADER = Integer.MIN_VALUE;
-    private static final int TYPE_FOOTER = Integer.MIN_VALUE + 1;
-    private static final long ID_HEADER = Long.MIN_VALUE;
-    private static final long ID_FOOTER = Long.MIN_VALUE + 1;
+    private static final long ID_DECORATION_BASE = Long.MIN_VALUE;
+    private static final Object PAYLOAD_VISIBILITY = new Object();
+    static final Object PAYLOAD_REBIND = new Object();
 
     private RecyclerView.Adapter innerAdapter;
+    private final RecyclerView.AdapterDataObserver innerObserver = new InnerAdapterDataObserver();
+    private int observerCount;
+    private boolean isObservingInner;
 
-    private View header;
-    private View footer;
+    private final ViewTypeAllocator viewTypeAllocator;
+    private final int headerViewType;
+    private final int footerViewType;
 
-    private RecyclerView.LayoutManager layoutManager;
+    private final List<Decoration> headers = new ArrayList<>();
+    private final List<Decoration> footers = new ArrayList<>();
+    private final SectionIndex<Decoration> sections = new SectionIndex<>();
+    private final PositionIndex<Decoration> positionIndex =
+            new PositionIndex<>(headers, sections, footers);
+    private final SparseArray<Decoration> decorationsByViewType = new SparseArray<>();
+    private final SparseArray<DecorationBinder> bindersByViewType = new SparseArray<>();
+    private long nextDecorationId = ID_DECORATION_BASE;
+
+    private boolean dedicatedViewTypes;
+    private final Map<HeaderFooterViewHolder, View> waitingContainers = new IdentityHashMap<>();
+
+    private LoadMoreFooter loadMoreFooter;
+    private Decoration loadMoreDecoration;
+    private int lastBoundPosition = RecyclerView.NO_POSITION;
+    private final RecyclerView.AdapterDataObserver boundPositionObserver =
+            new BoundPositionObserver();
+    private final Runnable loadMoreCheckRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // The observer only sees batched notifications once they are dispatched.
+            flushPendingUpdates();
+
+            if (lastBoundPosition != RecyclerView.NO_POSITION) {
+                notifyLoadMoreFooter(lastBoundPosition);
+            }
+        }
+    };
+
+    private PayloadListener payloadListener;
+
+    private MetricsListener metricsListener;
+
+    private int decorationChangeCount;
+    private final RecyclerView.AdapterDataObserver metricsObserver = new MetricsObserver();
+
+    private boolean releaseOnDetachEnabled;
+
+    private boolean itemCountCachingEnabled;
+    private boolean itemCountVerificationEnabled;
+    private int cachedInnerItemCount;
+
+    private final List<Host> hosts = new ArrayList<>();
+
+    private volatile PositionSnapshot positionSnapshot;
+    private long positionSnapshotVersion;
+    private boolean isPositionSnapshotStale;
+    private boolean isPositionSnapshotScheduled;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final ListUpdateCallback updateCallback = new AdapterUpdateCallback();
+    private final UpdateCallbackBridge updateCallbackBridge = new UpdateCallbackBridge();
+    private BatchingListUpdateCallback batchingUpdateCallback;
+    private boolean hasPendingUpdates;
+    private boolean isFlushScheduled;
+    private final FlushListener flushListener = new FlushListener();
+
+    private final Runnable positionSnapshotRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isPositionSnapshotScheduled = false;
+
+            // Otherwise the flush invalidates the snapshot again and schedules a new publish.
+            if (isPositionSnapshotStale && !hasPendingUpdates) {
+                publishPositionSnapshot();
+            }
+        }
+    };
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            isFlushScheduled = false;
+
+            flushPendingUpdates();
+        }
+    };
 
     /**
      * The constructor.
@@ -38,54 +130,107 @@ public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.V
      * @param innerAdapter The adapter to wrap.
      */
     public EasyHeaderFooterAdapter(@NonNull final RecyclerView.Adapter innerAdapter) {
-        this.innerAdapter = innerAdapter;
+        this(innerAdapter, new ViewTypeAllocator());
+    }
 
-        innerAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
-            public void onChanged() {
-                notifyDataSetChanged();
-            }
+    /**
+     * Constructor for allocating the view types of headers, footers and sections through the
+     * specified allocator. Pass the same allocator to all adapters which share a
+     * {@link RecyclerView.RecycledViewPool}.
+     *
+     * @param innerAdapter      The adapter to wrap.
+     * @param viewTypeAllocator The allocator.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public EasyHeaderFooterAdapter(@NonNull final RecyclerView.Adapter innerAdapter,
+                                   @NonNull final ViewTypeAllocator viewTypeAllocator) {
+        this.innerAdapter = innerAdapter;
+        this.viewTypeAllocator = viewTypeAllocator;
+        this.headerViewType = viewTypeAllocator.allocate();
+        this.footerViewType = viewTypeAllocator.allocate();
 
-            public void onItemRangeChanged(int positionStart, int itemCount) {
-                notifyItemRangeChanged(getDelegatedPosition(positionStart), itemCount);
-            }
+        setHasStableIds(innerAdapter.hasStableIds());
+        publishPositionSnapshot();
+    }
 
-            @Override
-            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
-                notifyItemRangeChanged(getDelegatedPosition(positionStart), itemCount, payload);
-            }
+    /**
+     * Constructor for wrapping multiple adapters, which are shown after each other between the
+     * headers and footers. They are concatenated through a {@link CompositeAdapter}, which is
+     * returned by {@link #getInnerAdapter()}.
+     *
+     * @param innerAdapters The adapters to wrap, in the order they should be shown.
+     */
+    @SuppressWarnings("unused")
+    public EasyHeaderFooterAdapter(
+            @NonNull final List<? extends RecyclerView.Adapter> innerAdapters) {
+        this(new CompositeAdapter(innerAdapters));
+    }
 
-            public void onItemRangeInserted(int positionStart, int itemCount) {
-                notifyItemRangeInserted(getDelegatedPosition(positionStart), itemCount);
-            }
+    @Override
+    public void registerAdapterDataObserver(final RecyclerView.AdapterDataObserver observer) {
+        super.registerAdapterDataObserver(observer);
 
-            public void onItemRangeRemoved(int positionStart, int itemCount) {
-                notifyItemRangeRemoved(getDelegatedPosition(positionStart), itemCount);
-            }
+        observerCount++;
+        updateInnerObservation();
+    }
 
-            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
-                notifyItemRangeChanged(getDelegatedPosition(fromPosition),
-                        getDelegatedPosition(toPosition) + itemCount);
-            }
-        });
+    @Override
+    public void unregisterAdapterDataObserver(final RecyclerView.AdapterDataObserver observer) {
+        super.unregisterAdapterDataObserver(observer);
 
-        setHasStableIds(innerAdapter.hasStableIds());
+        observerCount--;
+        updateInnerObservation();
     }
 
     @Override
     public void onAttachedToRecyclerView(final RecyclerView recyclerView) {
-        initLayoutManager(recyclerView.getLayoutManager());
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+        if (!hosts.isEmpty()) {
+            checkNoSharedViews(headers);
+            checkNoSharedViews(footers);
+
+            for (int i = 0; i < sections.size(); i++) {
+                checkNoSharedView(sections.get(i).view, sections.get(i).factory);
+            }
+        }
+
+        hosts.add(new Host(recyclerView, layoutManager,
+                initLayoutManager(recyclerView, layoutManager)));
+        recyclerView.addOnItemTouchListener(flushListener);
+        recyclerView.addOnScrollListener(flushListener);
 
         innerAdapter.onAttachedToRecyclerView(recyclerView);
     }
 
     @Override
     public void onDetachedFromRecyclerView(final RecyclerView recyclerView) {
+        final Host host = findHost(recyclerView);
+
+        flushPendingUpdates();
+        recyclerView.removeCallbacks(flushRunnable);
+        recyclerView.removeOnItemTouchListener(flushListener);
+        recyclerView.removeOnScrollListener(flushListener);
+
+        this.isFlushScheduled = false;
+
+        if (host != null) {
+            hosts.remove(host);
+
+            releaseViews(headers, host);
+            releaseViews(footers, host);
+
+            for (int i = 0; i < sections.size(); i++) {
+                releaseView(sections.get(i), host);
+            }
+        }
+
         innerAdapter.onDetachedFromRecyclerView(recyclerView);
     }
 
     @Override
     public void onViewAttachedToWindow(final RecyclerView.ViewHolder holder) {
-        if (!(holder instanceof HeaderFooterViewHolder)) {
+        if (isInnerHolder(holder)) {
             //noinspection unchecked
             innerAdapter.onViewAttachedToWindow(holder);
         }
@@ -93,7 +238,7 @@ public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.V
 
     @Override
     public void onViewDetachedFromWindow(final RecyclerView.ViewHolder holder) {
-        if (!(holder instanceof HeaderFooterViewHolder)) {
+        if (isInnerHolder(holder)) {
             //noinspection unchecked
             innerAdapter.onViewDetachedFromWindow(holder);
         }
@@ -101,7 +246,16 @@ public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.V
 
     @Override
     public void onViewRecycled(final RecyclerView.ViewHolder holder) {
-        if (!(holder instanceof HeaderFooterViewHolder)) {
+        final DecorationBinder binder = findBinder(holder);
+
+        if (binder != null) {
+            //noinspection unchecked
+            binder.onViewRecycled(holder);
+        } else if (holder instanceof DecorationViewHolder) {
+            releaseHolder((DecorationViewHolder) holder);
+        } else if (holder instanceof HeaderFooterViewHolder) {
+            waitingContainers.remove(holder);
+        } else {
             //noinspection unchecked
             innerAdapter.onViewRecycled(holder);
         }
@@ -109,9 +263,13 @@ public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.V
 
     @Override
     public boolean onFailedToRecycleView(final RecyclerView.ViewHolder holder) {
-        if (!(holder instanceof HeaderFooterViewHolder)) {
+        if (isInnerHolder(holder)) {
             //noinspection unchecked
             return innerAdapter.onFailedToRecycleView(holder);
+        } else if (holder instanceof DecorationViewHolder) {
+            releaseHolder((DecorationViewHolder) holder);
+        } else if (holder instanceof HeaderFooterViewHolder) {
+            waitingContainers.remove(holder);
         }
 
         return super.onFailedToRecycleView(holder);
@@ -119,46 +277,48 @@ public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.V
 
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(final ViewGroup parent, final int viewType) {
-        if (viewType == TYPE_HEADER || viewType == TYPE_FOOTER) {
-            return new HeaderFooterViewHolder(LayoutInflater.from(parent.getContext())
-                    .inflate(R.layout.easy_header_footer_adapter_item, parent, false));
-        } else {
-            return innerAdapter.onCreateViewHolder(parent, viewType);
+        if (metricsListener == null) {
+            return createHolder(parent, viewType);
         }
+
+        final long start = System.nanoTime();
+        final RecyclerView.ViewHolder result = createHolder(parent, viewType);
+
+        metricsListener.onViewHolderCreated(viewType, getKindForViewType(viewType),
+                System.nanoTime() - start);
+
+        return result;
     }
 
     @Override
     public void onBindViewHolder(final RecyclerView.ViewHolder holder, final int position,
                                  final List<Object> payloads) {
-        if (holder instanceof HeaderFooterViewHolder) {
-            bind((HeaderFooterViewHolder) holder, position);
-        } else {
-            //noinspection unchecked
-            innerAdapter.onBindViewHolder(holder, getRealPosition(position), payloads);
-        }
+        dispatchBind(holder, position, payloads);
     }
 
     @Override
     public void onBindViewHolder(final RecyclerView.ViewHolder holder, final int position) {
-        if (holder instanceof HeaderFooterViewHolder) {
-            bind((HeaderFooterViewHolder) holder, position);
-        } else {
-            //noinspection unchecked
-            innerAdapter.onBindViewHolder(holder, getRealPosition(position));
-        }
+        // Overrides of the variant with payloads must never see null, so it is not called here.
+        dispatchBind(holder, position, null);
     }
 
     @Override
     public int getItemCount() {
-        return innerAdapter.getItemCount() + (header != null ? 1 : 0) + (footer != null ? 1 : 0);
+        return positionIndex.getItemCount(getInnerItemCount());
     }
 
     @Override
     public int getItemViewType(final int position) {
         if (isHeader(position)) {
-            return TYPE_HEADER;
+            return getViewType(headers.get(position), headerViewType);
         } else if (isFooter(position)) {
-            return TYPE_FOOTER;
+            return getViewType(footers.get(position - getFooterPosition()), footerViewType);
+        }
+
+        final int sectionIndex = getSectionIndex(position);
+
+        if (sectionIndex >= 0) {
+            return getViewType(sections.get(sectionIndex), headerViewType);
         } else {
             return innerAdapter.getItemViewType(getRealPosition(position));
         }
@@ -167,9 +327,15 @@ public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.V
     @Override
     public long getItemId(final int position) {
         if (isHeader(position)) {
-            return ID_HEADER;
+            return headers.get(position).id;
         } else if (isFooter(position)) {
-            return ID_FOOTER;
+            return footers.get(position - getFooterPosition()).id;
+        }
+
+        final int sectionIndex = getSectionIndex(position);
+
+        if (sectionIndex >= 0) {
+            return sections.get(sectionIndex).id;
         } else {
             return innerAdapter.getItemId(getRealPosition(position));
         }
@@ -183,7 +349,7 @@ public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.V
      */
     @SuppressWarnings("WeakerAccess")
     public boolean isHeader(final int position) {
-        return header != null && position == 0;
+        return positionIndex.isHeader(position);
     }
 
     /**
@@ -194,190 +360,2186 @@ public class EasyHeaderFooterAdapter extends RecyclerView.Adapter<RecyclerView.V
      */
     @SuppressWarnings("WeakerAccess")
     public boolean isFooter(final int position) {
-        return footer != null && position == getFooterPosition();
+        return positionIndex.isFooter(position, getInnerItemCount());
+    }
+
+    /**
+     * Returns if a section is at the specified position.
+     *
+     * @param position The position.
+     * @return True if a section is at the position.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public boolean isSection(final int position) {
+        return getSectionIndex(position) >= 0;
     }
 
     /**
-     * Returns the header or null if none is set.
+     * Returns the first header or null if none is set or it has not been created yet.
      *
      * @return The header.
      */
     @SuppressWarnings("unused")
     @Nullable
     public View getHeader() {
-        return header;
+        return headers.isEmpty() ? null : headers.get(0).view;
     }
 
     /**
-     * Sets the header (replaces if there was already one) and notifies the appropriate listeners.
+     * Sets the header (replaces all existing headers) and notifies the appropriate listeners.
      *
      * @param header The header.
      */
     public void setHeader(@Nullable final View header) {
-        if (this.header == header) {
-            return;
-        }
+        setSingleDecoration(headers, header, 0);
+    }
+
+    /**
+     * Returns the header at the specified index. Returns null if the header is created by a
+     * factory and has not been shown yet.
+     *
+     * @param index The index of the header.
+     * @return The header.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public View getHeader(final int index) {
+        return headers.get(index).view;
+    }
 
-        final boolean hadHeader = this.header != null;
+    /**
+     * Returns the amount of headers.
+     *
+     * @return The amount of headers.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getHeaderCount() {
+        return headers.size();
+    }
 
-        this.header = header;
+    /**
+     * Adds a header below all existing headers and notifies the appropriate listeners.
+     *
+     * @param header The header.
+     */
+    @SuppressWarnings("unused")
+    public void addHeader(@NonNull final View header) {
+        addHeader(headers.size(), header);
+    }
 
-        if (header == null) {
-            notifyItemRemoved(0);
-        } else {
-            detachFromParent(header);
+    /**
+     * Adds a header at the specified index and notifies the appropriate listeners.
+     *
+     * @param index  The index to insert the header at.
+     * @param header The header.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void addHeader(final int index, @NonNull final View header) {
+        detachFromParent(header);
 
-            if (hadHeader) {
-                notifyItemChanged(0);
-            } else {
-                notifyItemInserted(0);
-            }
-        }
+        addDecoration(headers, index, newDecoration(header, null));
     }
 
     /**
-     * Returns the footer or null if none is set.
+     * Adds a header below all existing headers, which is inflated from the specified layout the
+     * first time it is shown, and notifies the appropriate listeners.
      *
-     * @return The footer.
+     * @param layoutRes The layout of the header.
      */
     @SuppressWarnings("unused")
-    @Nullable
-    public View getFooter() {
-        return footer;
+    public void addHeader(@LayoutRes final int layoutRes) {
+        addHeader(headers.size(), new LayoutViewFactory(layoutRes));
     }
 
     /**
-     * Sets the footer (replaces if there was already one) and notifies the appropriate listeners.
+     * Adds a header below all existing headers, which is created by the specified factory the
+     * first time it is shown, and notifies the appropriate listeners.
      *
-     * @param footer The footer.
+     * @param factory The factory for the header.
      */
-    public void setFooter(@Nullable final View footer) {
-        if (this.footer == footer) {
-            return;
-        }
+    @SuppressWarnings("unused")
+    public void addHeader(@NonNull final ViewFactory factory) {
+        addHeader(headers.size(), factory);
+    }
 
-        final boolean hadFooter = this.footer != null;
+    /**
+     * Adds a header at the specified index, which is created by the specified factory the first
+     * time it is shown, and notifies the appropriate listeners.
+     *
+     * @param index   The index to insert the header at.
+     * @param factory The factory for the header.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void addHeader(final int index, @NonNull final ViewFactory factory) {
+        addDecoration(headers, index, newDecoration(null, factory));
+    }
 
-        this.footer = footer;
+    /**
+     * Adds a header at the end, which is shown through a ViewHolder of the specified binder, and
+     * notifies the appropriate listeners.
+     *
+     * @param binder The binder for the header.
+     */
+    @SuppressWarnings("unused")
+    public void addHeader(@NonNull final DecorationBinder binder) {
+        addHeader(headers.size(), binder);
+    }
 
-        if (footer == null) {
-            notifyItemRemoved(getFooterPosition());
-        } else {
-            if (hadFooter) {
-                notifyItemChanged(getFooterPosition());
-            } else {
-                notifyItemInserted(getFooterPosition());
-            }
-        }
+    /**
+     * Adds a header at the specified index, which is shown through a ViewHolder of the specified
+     * binder, and notifies the appropriate listeners. The adapter does not keep a View for this
+     * header, which means that {@link #getHeader(int)} returns null for it and the
+     * {@link PayloadListener} is not called. The binder gets the payloads instead.
+     *
+     * @param index  The index to insert the header at.
+     * @param binder The binder for the header.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void addHeader(final int index, @NonNull final DecorationBinder binder) {
+        addDecoration(headers, index, newDecoration(binder));
     }
 
     /**
-     * Returns the inner adapter, passed in the constructor.
+     * Removes the header at the specified index and notifies the appropriate listeners.
      *
-     * @return The inner adapter.
+     * @param index The index of the header.
      */
     @SuppressWarnings("unused")
-    public RecyclerView.Adapter getInnerAdapter() {
-        return innerAdapter;
+    public void removeHeader(final int index) {
+        flushPendingUpdates();
+
+        forgetDecoration(headers.remove(index));
+        invalidateSpanSizes(index);
+        invalidatePositionSnapshot();
+
+        notifyItemRemoved(index);
     }
 
     /**
-     * Returns the position of the item in the inner adapter.
+     * Returns if the header at the specified index is visible.
      *
-     * @param position The raw position.
-     * @return The real position.
+     * @param index The index of the header.
+     * @return True if the header is visible.
      */
-    public int getRealPosition(final int position) {
-        return position - (header != null ? 1 : 0);
+    @SuppressWarnings("unused")
+    public boolean isHeaderVisible(final int index) {
+        return headers.get(index).visible;
     }
 
-    private int getDelegatedPosition(final int position) {
-        return position + (header != null ? 1 : 0);
+    /**
+     * Shows or hides all headers and notifies the appropriate listeners. Hidden headers keep
+     * their position and are collapsed to zero size, so toggling them only rebinds them instead
+     * of moving all other items.
+     *
+     * @param visible True to show the headers, false to hide them.
+     */
+    @SuppressWarnings("unused")
+    public void setHeaderVisible(final boolean visible) {
+        for (int i = 0; i < headers.size(); i++) {
+            setDecorationVisible(headers.get(i), i, visible);
+        }
     }
 
-    private int getFooterPosition() {
-        return innerAdapter.getItemCount() + (header != null ? 1 : 0);
+    /**
+     * Shows or hides the header at the specified index and notifies the appropriate listeners.
+     *
+     * @param index   The index of the header.
+     * @param visible True to show the header, false to hide it.
+     * @see #setHeaderVisible(boolean)
+     */
+    @SuppressWarnings("unused")
+    public void setHeaderVisible(final int index, final boolean visible) {
+        setDecorationVisible(headers.get(index), index, visible);
     }
 
-    private void initLayoutManager(final RecyclerView.LayoutManager layoutManager) {
-        this.layoutManager = layoutManager;
+    /**
+     * Notifies that the header at the specified index changed. If a payload is passed, it is
+     * delivered to the {@link PayloadListener} and the header is updated in place, without a
+     * change animation. With dedicated view types or a {@link DecorationBinder}, the header is
+     * always updated in place.
+     *
+     * @param index   The index of the header.
+     * @param payload The payload or null for a full rebind.
+     * @see #setPayloadListener(PayloadListener)
+     */
+    @SuppressWarnings("unused")
+    public void notifyHeaderChanged(final int index, @Nullable final Object payload) {
+        if (index < 0 || index >= headers.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + headers.size());
+        }
 
-        if (layoutManager instanceof GridLayoutManager) {
-            final GridLayoutManager castedLayoutManager = (GridLayoutManager) layoutManager;
-            final SpanSizeLookup existingLookup = castedLayoutManager.getSpanSizeLookup();
+        flushPendingUpdates();
 
-            castedLayoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
-                @Override
-                public int getSpanSize(int position) {
-                    if (isHeader(position) || isFooter(position)) {
-                        return castedLayoutManager.getSpanCount();
-                    }
+        notifyDecorationChanged(headers.get(index), index, payload);
+    }
 
-                    return existingLookup.getSpanSize(getRealPosition(position));
-                }
-            });
-        }
+    /**
+     * Returns the first footer or null if none is set or it has not been created yet.
+     *
+     * @return The footer.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public View getFooter() {
+        return footers.isEmpty() ? null : footers.get(0).view;
     }
 
-    private void bind(final HeaderFooterViewHolder holder, final int position) {
-        final ViewGroup holderItemView = (ViewGroup) holder.itemView;
-        final ViewGroup.LayoutParams layoutParams;
-        final View viewToAdd;
+    /**
+     * Sets the footer (replaces all existing footers) and notifies the appropriate listeners.
+     *
+     * @param footer The footer.
+     */
+    public void setFooter(@Nullable final View footer) {
+        setSingleDecoration(footers, footer, getFooterPosition());
+    }
 
-        if (isHeader(position)) {
-            viewToAdd = header;
-        } else if (isFooter(position)) {
-            viewToAdd = footer;
-        } else {
-            return;
-        }
+    /**
+     * Returns the footer at the specified index. Returns null if the footer is created by a
+     * factory and has not been shown yet.
+     *
+     * @param index The index of the footer.
+     * @return The footer.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public View getFooter(final int index) {
+        return footers.get(index).view;
+    }
 
-        detachFromParent(viewToAdd);
-        holderItemView.removeAllViews();
-        holderItemView.addView(viewToAdd);
+    /**
+     * Returns the amount of footers.
+     *
+     * @return The amount of footers.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getFooterCount() {
+        return footers.size();
+    }
 
-        if (layoutManager instanceof StaggeredGridLayoutManager) {
-            if (viewToAdd.getLayoutParams() == null) {
-                layoutParams = new StaggeredGridLayoutManager.LayoutParams(
-                        ViewGroup.LayoutParams.MATCH_PARENT,
-                        ViewGroup.LayoutParams.WRAP_CONTENT
-                );
-            } else {
-                layoutParams = new StaggeredGridLayoutManager.LayoutParams(
-                        viewToAdd.getLayoutParams().width,
-                        viewToAdd.getLayoutParams().height
-                );
-            }
+    /**
+     * Adds a footer below all existing footers and notifies the appropriate listeners.
+     *
+     * @param footer The footer.
+     */
+    @SuppressWarnings("unused")
+    public void addFooter(@NonNull final View footer) {
+        addFooter(footers.size(), footer);
+    }
 
-            ((StaggeredGridLayoutManager.LayoutParams) layoutParams).setFullSpan(true);
-        } else {
-            if (viewToAdd.getLayoutParams() == null) {
-                layoutParams = new ViewGroup.LayoutParams(
-                        ViewGroup.LayoutParams.MATCH_PARENT,
-                        ViewGroup.LayoutParams.WRAP_CONTENT
-                );
-            } else {
-                layoutParams = new ViewGroup.LayoutParams(
-                        viewToAdd.getLayoutParams().width,
-                        viewToAdd.getLayoutParams().height
-                );
-            }
-        }
+    /**
+     * Adds a footer at the specified index and notifies the appropriate listeners.
+     *
+     * @param index  The index to insert the footer at.
+     * @param footer The footer.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void addFooter(final int index, @NonNull final View footer) {
+        detachFromParent(footer);
 
-        holder.itemView.setLayoutParams(layoutParams);
+        addDecoration(footers, index, newDecoration(footer, null));
     }
 
-    private void detachFromParent(@NonNull final View view) {
-        final ViewGroup parent = (ViewGroup) view.getParent();
+    /**
+     * Adds a footer below all existing footers, which is inflated from the specified layout the
+     * first time it is shown, and notifies the appropriate listeners.
+     *
+     * @param layoutRes The layout of the footer.
+     */
+    @SuppressWarnings("unused")
+    public void addFooter(@LayoutRes final int layoutRes) {
+        addFooter(footers.size(), new LayoutViewFactory(layoutRes));
+    }
 
-        if (parent != null) {
-            parent.removeView(view);
-        }
+    /**
+     * Adds a footer below all existing footers, which is created by the specified factory the
+     * first time it is shown, and notifies the appropriate listeners.
+     *
+     * @param factory The factory for the footer.
+     */
+    @SuppressWarnings("unused")
+    public void addFooter(@NonNull final ViewFactory factory) {
+        addFooter(footers.size(), factory);
     }
 
-    private static class HeaderFooterViewHolder extends RecyclerView.ViewHolder {
-        HeaderFooterViewHolder(final View itemView) {
-            super(itemView);
+    /**
+     * Adds a footer at the specified index, which is created by the specified factory the first
+     * time it is shown, and notifies the appropriate listeners.
+     *
+     * @param index   The index to insert the footer at.
+     * @param factory The factory for the footer.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void addFooter(final int index, @NonNull final ViewFactory factory) {
+        addDecoration(footers, index, newDecoration(null, factory));
+    }
+
+    /**
+     * Adds a footer at the end, which is shown through a ViewHolder of the specified binder, and
+     * notifies the appropriate listeners.
+     *
+     * @param binder The binder for the footer.
+     */
+    @SuppressWarnings("unused")
+    public void addFooter(@NonNull final DecorationBinder binder) {
+        addFooter(footers.size(), binder);
+    }
+
+    /**
+     * Adds a footer at the specified index, which is shown through a ViewHolder of the specified
+     * binder, and notifies the appropriate listeners. See
+     * {@link #addHeader(int, DecorationBinder)} for details.
+     *
+     * @param index  The index to insert the footer at.
+     * @param binder The binder for the footer.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void addFooter(final int index, @NonNull final DecorationBinder binder) {
+        addDecoration(footers, index, newDecoration(binder));
+    }
+
+    /**
+     * Removes the footer at the specified index and notifies the appropriate listeners.
+     *
+     * @param index The index of the footer.
+     */
+    @SuppressWarnings("unused")
+    public void removeFooter(final int index) {
+        flushPendingUpdates();
+
+        forgetDecoration(footers.remove(index));
+        invalidateSpanSizes(getFooterPosition() + index);
+        invalidatePositionSnapshot();
+
+        notifyItemRemoved(getFooterPosition() + index);
+    }
+
+    /**
+     * Returns if the footer at the specified index is visible.
+     *
+     * @param index The index of the footer.
+     * @return True if the footer is visible.
+     */
+    @SuppressWarnings("unused")
+    public boolean isFooterVisible(final int index) {
+        return footers.get(index).visible;
+    }
+
+    /**
+     * Shows or hides all footers and notifies the appropriate listeners. Hidden footers keep
+     * their position and are collapsed to zero size, so toggling them only rebinds them instead
+     * of a removal and insertion.
+     *
+     * @param visible True to show the footers, false to hide them.
+     */
+    @SuppressWarnings("unused")
+    public void setFooterVisible(final boolean visible) {
+        for (int i = 0; i < footers.size(); i++) {
+            setDecorationVisible(footers.get(i), getFooterPosition() + i, visible);
+        }
+    }
+
+    /**
+     * Shows or hides the footer at the specified index and notifies the appropriate listeners.
+     *
+     * @param index   The index of the footer.
+     * @param visible True to show the footer, false to hide it.
+     * @see #setFooterVisible(boolean)
+     */
+    @SuppressWarnings("unused")
+    public void setFooterVisible(final int index, final boolean visible) {
+        setDecorationVisible(footers.get(index), getFooterPosition() + index, visible);
+    }
+
+    /**
+     * Notifies that the footer at the specified index changed. If a payload is passed, it is
+     * delivered to the {@link PayloadListener} and the footer is updated in place, without a
+     * change animation. With dedicated view types or a {@link DecorationBinder}, the footer is
+     * always updated in place.
+     *
+     * @param index   The index of the footer.
+     * @param payload The payload or null for a full rebind.
+     * @see #setPayloadListener(PayloadListener)
+     */
+    @SuppressWarnings("unused")
+    public void notifyFooterChanged(final int index, @Nullable final Object payload) {
+        if (index < 0 || index >= footers.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + footers.size());
+        }
+
+        flushPendingUpdates();
+
+        notifyDecorationChanged(footers.get(index), getFooterPosition() + index, payload);
+    }
+
+    /**
+     * Returns the listener for payloads of headers and footers or null if none is set.
+     *
+     * @return The listener.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public PayloadListener getPayloadListener() {
+        return payloadListener;
+    }
+
+    /**
+     * Sets the listener for payloads of headers and footers. It is called whenever a header or
+     * footer is bound with the payloads passed to {@link #notifyHeaderChanged(int, Object)} and
+     * {@link #notifyFooterChanged(int, Object)}, or with no payloads for a full bind.
+     *
+     * @param payloadListener The listener or null to remove it.
+     */
+    @SuppressWarnings("unused")
+    public void setPayloadListener(@Nullable final PayloadListener payloadListener) {
+        this.payloadListener = payloadListener;
+    }
+
+    /**
+     * Returns the listener for the performance of this adapter or null if none is set.
+     *
+     * @return The listener.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets a listener for the performance of this adapter. It is notified about the duration of
+     * each creation and binding of a ViewHolder and about all notifications of this adapter.
+     * Nothing is measured while no listener is set.
+     *
+     * @param metricsListener The listener or null to remove it.
+     * @see AdapterMetrics
+     */
+    @SuppressWarnings("unused")
+    public void setMetricsListener(@Nullable final MetricsListener metricsListener) {
+        // The observer of the metrics must not cause the inner adapter to be observed.
+        if (this.metricsListener == null && metricsListener != null) {
+            super.registerAdapterDataObserver(metricsObserver);
+        } else if (this.metricsListener != null && metricsListener == null) {
+            super.unregisterAdapterDataObserver(metricsObserver);
+        }
+
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Returns the footer for endless scrolling or null if none is set.
+     *
+     * @return The footer.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public LoadMoreFooter getLoadMoreFooter() {
+        return loadMoreFooter;
+    }
+
+    /**
+     * Sets the footer for endless scrolling (replaces if there was already one) and notifies
+     * the appropriate listeners. It is added below all existing footers. A replaced footer keeps
+     * its position and is only changed.
+     *
+     * @param loadMoreFooter The footer or null to remove it.
+     */
+    @SuppressWarnings("unused")
+    public void setLoadMoreFooter(@Nullable final LoadMoreFooter loadMoreFooter) {
+        if (this.loadMoreFooter == loadMoreFooter) {
+            return;
+        }
+
+        final int index = this.loadMoreFooter == null ? -1 : footers.indexOf(loadMoreDecoration);
+
+        if (this.loadMoreFooter != null) {
+            this.loadMoreFooter.setIdleCheck(null);
+            super.unregisterAdapterDataObserver(boundPositionObserver);
+        }
+
+        this.loadMoreFooter = loadMoreFooter;
+        this.lastBoundPosition = RecyclerView.NO_POSITION;
+
+        if (loadMoreFooter == null) {
+            loadMoreDecoration = null;
+
+            if (index >= 0) {
+                removeFooter(index);
+            }
+
+            return;
+        }
+
+        detachFromParent(loadMoreFooter.getView());
+        loadMoreFooter.setIdleCheck(loadMoreCheckRunnable);
+        super.registerAdapterDataObserver(boundPositionObserver);
+
+        if (index >= 0) {
+            flushPendingUpdates();
+
+            // Keep the id of the replaced footer, so that stable ids stay stable.
+            forgetDecoration(loadMoreDecoration);
+
+            loadMoreDecoration = newDecoration(loadMoreFooter.getView(), null,
+                    loadMoreDecoration.id);
+
+            footers.set(index, loadMoreDecoration);
+
+            notifyItemChanged(getFooterPosition() + index);
+        } else {
+            loadMoreDecoration = newDecoration(loadMoreFooter.getView(), null);
+
+            addDecoration(footers, footers.size(), loadMoreDecoration);
+        }
+    }
+
+    /**
+     * Returns the section at the specified index. Returns null if the section is created by a
+     * factory and has not been shown yet.
+     *
+     * @param index The index of the section.
+     * @return The section.
+     */
+    @SuppressWarnings("unused")
+    @Nullable
+    public View getSection(final int index) {
+        return sections.get(index).view;
+    }
+
+    /**
+     * Returns the position in the inner adapter of the item, which the section at the specified
+     * index is shown before.
+     *
+     * @param index The index of the section.
+     * @return The position in the inner adapter.
+     */
+    @SuppressWarnings("unused")
+    public int getSectionPosition(final int index) {
+        return sections.getInnerPosition(index);
+    }
+
+    /**
+     * Returns the amount of sections.
+     *
+     * @return The amount of sections.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getSectionCount() {
+        return sections.size();
+    }
+
+    /**
+     * Adds a section before the item at the specified position of the inner adapter and
+     * notifies the appropriate listeners. Sections are sorted by their position. If there are
+     * already sections at the position, the new one is shown after those.
+     * <p>
+     * Sections move along with the items, when items are inserted or removed. Items inserted at
+     * the position of a section are shown after it. Sections within a removed range are kept
+     * and moved to its start. While sections exist, the inner adapter is observed even if this
+     * adapter is not attached to a RecyclerView, so that they keep moving along.
+     *
+     * @param realPosition The position in the inner adapter. This may be equal to the item count
+     *                     of the inner adapter to show the section after the last item.
+     * @param section      The section.
+     * @return The index of the section.
+     */
+    @SuppressWarnings("unused")
+    public int addSection(final int realPosition, @NonNull final View section) {
+        detachFromParent(section);
+
+        return addSection(realPosition, newDecoration(section, null));
+    }
+
+    /**
+     * Adds a section before the item at the specified position of the inner adapter, which is
+     * created by the specified factory the first time it is shown, and notifies the appropriate
+     * listeners. See {@link #addSection(int, View)} for details.
+     *
+     * @param realPosition The position in the inner adapter.
+     * @param factory      The factory for the section.
+     * @return The index of the section.
+     */
+    @SuppressWarnings("unused")
+    public int addSection(final int realPosition, @NonNull final ViewFactory factory) {
+        return addSection(realPosition, newDecoration(null, factory));
+    }
+
+    /**
+     * Adds a section before the item at the specified position of the inner adapter, which is
+     * shown through a ViewHolder of the specified binder, and notifies the appropriate listeners.
+     * See {@link #addSection(int, View)} and {@link #addHeader(int, DecorationBinder)} for
+     * details.
+     *
+     * @param realPosition The position in the inner adapter.
+     * @param binder       The binder for the section.
+     * @return The index of the section.
+     */
+    @SuppressWarnings("unused")
+    public int addSection(final int realPosition, @NonNull final DecorationBinder binder) {
+        return addSection(realPosition, newDecoration(binder));
+    }
+
+    /**
+     * Removes the section at the specified index and notifies the appropriate listeners.
+     *
+     * @param index The index of the section.
+     */
+    @SuppressWarnings("unused")
+    public void removeSection(final int index) {
+        flushPendingUpdates();
+
+        final int position = headers.size() + sections.getBodyPosition(index);
+
+        forgetDecoration(sections.remove(index));
+        updateInnerObservation();
+        invalidateSpanSizes(position);
+        invalidatePositionSnapshot();
+
+        notifyItemRemoved(position);
+    }
+
+    /**
+     * Returns if each header and footer gets its own view type.
+     *
+     * @return True if dedicated view types are enabled.
+     */
+    @SuppressWarnings("unused")
+    public boolean isDedicatedViewTypesEnabled() {
+        return dedicatedViewTypes;
+    }
+
+    /**
+     * Sets if each header and footer should get its own view type. If enabled, the ViewHolder
+     * wraps the View of the header or footer directly instead of adding it to a container on
+     * each bind. Binding the same header or footer again is free in that case.
+     * <p>
+     * This is disabled by default.
+     *
+     * @param dedicatedViewTypes True to enable dedicated view types.
+     */
+    @SuppressWarnings("unused")
+    public void setDedicatedViewTypesEnabled(final boolean dedicatedViewTypes) {
+        if (this.dedicatedViewTypes == dedicatedViewTypes) {
+            return;
+        }
+
+        this.dedicatedViewTypes = dedicatedViewTypes;
+
+        if (!headers.isEmpty() || !footers.isEmpty() || !sections.isEmpty()) {
+            flushPendingUpdates();
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Returns if notifications of the inner adapter are batched.
+     *
+     * @return True if batching is enabled.
+     */
+    @SuppressWarnings("unused")
+    public boolean isBatchingEnabled() {
+        return batchingUpdateCallback != null;
+    }
+
+    /**
+     * Sets if notifications of the inner adapter should be batched. If enabled, adjacent or
+     * overlapping inserts, removals and changes are merged and dispatched at the start of the
+     * next frame, or when {@link #flushPendingUpdates()} is called. This reduces the work of the
+     * RecyclerView if the inner adapter notifies many small changes in a row.
+     * <p>
+     * Notifications are dispatched right away while a RecyclerView is detached from the window,
+     * waits for a layout or scrolls, as the layout or the scroll could otherwise run before the
+     * next frame and see the changed data without the notifications. Pending notifications are
+     * also dispatched when a touch reaches the RecyclerView or it starts to scroll. Call
+     * {@link #flushPendingUpdates()} before anything else reads the positions of the adapter,
+     * like a scroll to a position.
+     * <p>
+     * The data of the inner adapter must only be changed on the main thread while this is
+     * enabled. This is disabled by default.
+     *
+     * @param batchingEnabled True to enable batching.
+     */
+    @SuppressWarnings("unused")
+    public void setBatchingEnabled(final boolean batchingEnabled) {
+        if (batchingEnabled && batchingUpdateCallback == null) {
+            batchingUpdateCallback = new BatchingListUpdateCallback(updateCallback);
+        } else if (!batchingEnabled && batchingUpdateCallback != null) {
+            flushPendingUpdates();
+
+            batchingUpdateCallback = null;
+        }
+    }
+
+    /**
+     * Dispatches all notifications of the inner adapter which have not been dispatched yet.
+     * This does nothing if batching is disabled.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void flushPendingUpdates() {
+        if (batchingUpdateCallback != null) {
+            hasPendingUpdates = false;
+
+            batchingUpdateCallback.dispatchLastEvent();
+        }
+    }
+
+    /**
+     * Returns if Views are released when this adapter is detached.
+     *
+     * @return True if enabled.
+     */
+    @SuppressWarnings("unused")
+    public boolean isReleaseOnDetachEnabled() {
+        return releaseOnDetachEnabled;
+    }
+
+    /**
+     * Sets if all headers, footers and sections created through a {@link ViewFactory} or layout
+     * resource should be dropped when this adapter is detached from the RecyclerView showing
+     * them. Those are created again when needed after the next attach. This avoids keeping the
+     * Views of a destroyed screen alive, for example if the adapter is retained across Fragments
+     * in the back stack.
+     * <p>
+     * Headers, footers and sections added as a View can't be created again and are kept. The
+     * LayoutManager of a RecyclerView is always released when this adapter is detached from it.
+     * This is disabled by default.
+     *
+     * @param releaseOnDetachEnabled True to enable releasing.
+     */
+    @SuppressWarnings("unused")
+    public void setReleaseOnDetachEnabled(final boolean releaseOnDetachEnabled) {
+        this.releaseOnDetachEnabled = releaseOnDetachEnabled;
+    }
+
+    /**
+     * Returns if the item count of the inner adapter is cached.
+     *
+     * @return True if caching is enabled.
+     */
+    @SuppressWarnings("unused")
+    public boolean isItemCountCachingEnabled() {
+        return itemCountCachingEnabled;
+    }
+
+    /**
+     * Sets if the item count of the inner adapter should be cached. If enabled, the count is
+     * only queried once and then kept up to date through the notifications of the inner adapter.
+     * This is useful if counting is expensive, like for adapters backed by a Cursor.
+     * <p>
+     * The inner adapter has to notify all changes of its size while this is enabled.
+     * This is disabled by default.
+     *
+     * @param itemCountCachingEnabled True to enable caching.
+     */
+    @SuppressWarnings("unused")
+    public void setItemCountCachingEnabled(final boolean itemCountCachingEnabled) {
+        this.itemCountCachingEnabled = itemCountCachingEnabled;
+        this.cachedInnerItemCount = innerAdapter.getItemCount();
+    }
+
+    /**
+     * Sets if the cached item count should be compared to the real one on each access. If they
+     * differ, an {@link IllegalStateException} is thrown. This defeats the purpose of the cache
+     * and is only meant for debug builds to find inner adapters, which change their size without
+     * notifying.
+     * <p>
+     * This is disabled by default.
+     *
+     * @param itemCountVerificationEnabled True to enable verification.
+     */
+    @SuppressWarnings("unused")
+    public void setItemCountVerificationEnabled(final boolean itemCountVerificationEnabled) {
+        this.itemCountVerificationEnabled = itemCountVerificationEnabled;
+    }
+
+    /**
+     * Returns the inner adapter, passed in the constructor.
+     *
+     * @return The inner adapter.
+     */
+    @SuppressWarnings("unused")
+    public RecyclerView.Adapter getInnerAdapter() {
+        return innerAdapter;
+    }
+
+    /**
+     * Returns a new queue for changes of the specified list, which is shown by the inner adapter.
+     * Changes can be enqueued from any thread and are applied and notified on the main thread.
+     * This is not supported if this adapter wraps multiple adapters. Create the queue through an
+     * adapter which only wraps the one showing the list in that case.
+     *
+     * @param items The list of the inner adapter.
+     * @param <T>   The type of the items.
+     * @return The queue.
+     * @throws IllegalStateException If this adapter wraps multiple adapters.
+     */
+    @NonNull
+    @SuppressWarnings("unused")
+    public <T> UpdateQueue<T> createUpdateQueue(@NonNull final List<T> items) {
+        if (innerAdapter instanceof CompositeAdapter) {
+            // The positions of the queue would be notified as positions of all adapters.
+            throw new IllegalStateException("Update queues are not supported for multiple "
+                    + "adapters.");
+        }
+
+        return new UpdateQueue<>(items, this);
+    }
+
+    /**
+     * Returns the position of the item in the inner adapter. Returns
+     * {@link RecyclerView#NO_POSITION} if a section is at the position.
+     *
+     * @param position The raw position.
+     * @return The real position.
+     */
+    public int getRealPosition(final int position) {
+        return positionIndex.getRealPosition(position, getInnerItemCount());
+    }
+
+    /**
+     * Returns an immutable snapshot of the position mapping. Unlike the other methods of this
+     * adapter, this method and the returned snapshot can be used from any thread. After
+     * structural changes, a new snapshot with a higher version is published by a message posted
+     * to the main thread, so all changes made before that message runs share one snapshot. On the
+     * main thread, this returns an up to date snapshot right away, unless batched notifications
+     * have not been dispatched yet.
+     *
+     * @return The snapshot.
+     */
+    @NonNull
+    @SuppressWarnings("unused")
+    public PositionSnapshot getPositionSnapshot() {
+        if (Looper.myLooper() == Looper.getMainLooper() && isPositionSnapshotStale
+                && !hasPendingUpdates) {
+            publishPositionSnapshot();
+        }
+
+        return positionSnapshot;
+    }
+
+    /**
+     * Returns the last position at or before the specified one, which should stick to the top.
+     *
+     * @param position The position.
+     * @return The sticky position or {@link RecyclerView#NO_POSITION}.
+     */
+    int findStickyPosition(final int position) {
+        return positionIndex.findStickyPosition(position);
+    }
+
+    /**
+     * Returns the first position after the specified one, which should stick to the top.
+     *
+     * @param position The position.
+     * @return The sticky position or {@link RecyclerView#NO_POSITION}.
+     */
+    int findNextStickyPosition(final int position) {
+        return positionIndex.findNextStickyPosition(position);
+    }
+
+    /**
+     * Returns how often headers and footers have been notified as changed. Views which render
+     * them somewhere else compare this to find out if they are outdated.
+     *
+     * @return The amount of changes.
+     */
+    int getDecorationChangeCount() {
+        return decorationChangeCount;
+    }
+
+    /**
+     * Returns if a header, footer or section is at the specified position.
+     *
+     * @param position The position.
+     * @return True if a header, footer or section is at the position.
+     */
+    boolean isDecoration(final int position) {
+        return isHeader(position) || isFooter(position) || isSection(position);
+    }
+
+    /**
+     * Returns the View of the header, footer or section at the specified position, which is
+     * shown in the specified RecyclerView, if it has been created already.
+     *
+     * @param recyclerView The RecyclerView.
+     * @param position     The position.
+     * @return The View or null.
+     */
+    @Nullable
+    View getDecorationView(@NonNull final RecyclerView recyclerView, final int position) {
+        final Decoration decoration = getDecoration(position);
+
+        if (decoration == null || !decoration.visible) {
+            return null;
+        }
+
+        return decoration.peekView(findHost(recyclerView));
+    }
+
+    @Nullable
+    private Decoration getDecoration(final int position) {
+        return positionIndex.getDecoration(position, getInnerItemCount());
+    }
+
+    private int getSectionIndex(final int position) {
+        return positionIndex.getSectionIndex(position);
+    }
+
+    private int getDelegatedPosition(final int position) {
+        return positionIndex.getDelegatedPosition(position);
+    }
+
+    private int getFooterPosition() {
+        return positionIndex.getFooterPosition(getInnerItemCount());
+    }
+
+    private RecyclerView.ViewHolder createHolder(final ViewGroup parent, final int viewType) {
+        final DecorationBinder binder = bindersByViewType.get(viewType);
+
+        if (binder != null) {
+            final RecyclerView.ViewHolder result = binder.onCreateViewHolder(parent);
+
+            setFullSpan(result.itemView, findHost(parent));
+
+            return result;
+        } else if (viewType == headerViewType || viewType == footerViewType) {
+            return createContainerHolder(parent);
+        } else if (isDecorationViewType(viewType)) {
+            final Host host = findHost(parent);
+            final View view = findDecoration(viewType).getView(host, parent);
+
+            // The View is still the item of another holder, which is animated out after its
+            // decoration has been removed or is cached. Taking it over would break that holder,
+            // so a container is used, which gets the View once the other holder is recycled.
+            if (view.getTag(R.id.easy_header_footer_adapter_holder) != null) {
+                return createContainerHolder(parent);
+            }
+
+            detachFromParent(view);
+            setFullSpan(view, host);
+
+            return new DecorationViewHolder(view, host);
+        } else {
+            return innerAdapter.onCreateViewHolder(parent, viewType);
+        }
+    }
+
+    private HeaderFooterViewHolder createContainerHolder(final ViewGroup parent) {
+        return new HeaderFooterViewHolder(LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.easy_header_footer_adapter_item, parent, false),
+                findHost(parent));
+    }
+
+    private void dispatchBind(final RecyclerView.ViewHolder holder, final int position,
+                              @Nullable final List<Object> payloads) {
+        if (metricsListener == null) {
+            bindHolder(holder, position, payloads);
+        } else {
+            final long start = System.nanoTime();
+
+            bindHolder(holder, position, payloads);
+
+            metricsListener.onViewHolderBound(holder.getItemViewType(), getKind(position),
+                    System.nanoTime() - start);
+        }
+
+        if (loadMoreFooter != null) {
+            lastBoundPosition = position;
+
+            notifyLoadMoreFooter(position);
+        }
+    }
+
+    /**
+     * Binds the holder. The inner adapter is called without payloads if they are null, to keep
+     * overrides of only that variant working.
+     */
+    private void bindHolder(final RecyclerView.ViewHolder holder, final int position,
+                            @Nullable final List<Object> payloads) {
+        final DecorationBinder binder = findBinder(holder);
+
+        if (binder != null) {
+            bind(binder, holder, position, payloads);
+        } else if (holder instanceof DecorationViewHolder) {
+            bind((DecorationViewHolder) holder, position);
+            dispatchPayloads((HeaderFooterViewHolder) holder, position, payloads);
+        } else if (holder instanceof HeaderFooterViewHolder) {
+            bind((HeaderFooterViewHolder) holder, position);
+            dispatchPayloads((HeaderFooterViewHolder) holder, position, payloads);
+        } else if (payloads == null) {
+            //noinspection unchecked
+            innerAdapter.onBindViewHolder(holder, getRealPosition(position));
+        } else {
+            //noinspection unchecked
+            innerAdapter.onBindViewHolder(holder, getRealPosition(position), payloads);
+        }
+    }
+
+    /**
+     * Passes the payloads to the listener. Full binds are passed on with an empty list, as a
+     * payload sent while the View was not shown would otherwise be lost.
+     */
+    private void dispatchPayloads(final HeaderFooterViewHolder holder, final int position,
+                                  @Nullable final List<Object> payloads) {
+        if (payloadListener == null) {
+            return;
+        }
+
+        final Decoration decoration = getDecoration(position);
+        final View view = decoration == null ? null : decoration.peekView(holder.host);
+
+        if (view == null) {
+            return;
+        }
+
+        if (payloads == null || payloads.isEmpty()) {
+            payloadListener.onBindPayloads(view, position, Collections.<Object>emptyList());
+        } else {
+            payloadListener.onBindPayloads(view, position, removeInternalPayloads(payloads));
+        }
+    }
+
+    private void bind(final DecorationBinder binder, final RecyclerView.ViewHolder holder,
+                      final int position, @Nullable final List<Object> payloads) {
+        final Decoration decoration = getDecoration(position);
+
+        if (decoration == null || decoration.visible) {
+            expand(holder.itemView);
+        } else {
+            collapse(holder.itemView);
+        }
+
+        setFullSpan(holder.itemView);
+
+        if (payloads == null || payloads.isEmpty() || payloads.contains(PAYLOAD_REBIND)) {
+            //noinspection unchecked
+            binder.onBindViewHolder(holder, Collections.emptyList());
+        } else {
+            final List<Object> result = removeInternalPayloads(payloads);
+
+            // A change of only the visibility does not need a bind.
+            if (!result.isEmpty()) {
+                //noinspection unchecked
+                binder.onBindViewHolder(holder, result);
+            }
+        }
+    }
+
+    @NonNull
+    private static List<Object> removeInternalPayloads(@NonNull final List<Object> payloads) {
+        // Only copy the list if it contains an internal payload, which is the rare case.
+        if (!payloads.contains(PAYLOAD_VISIBILITY) && !payloads.contains(PAYLOAD_REBIND)) {
+            return payloads;
+        }
+
+        final List<Object> result = new ArrayList<>(payloads.size());
+
+        for (final Object payload : payloads) {
+            if (payload != PAYLOAD_VISIBILITY && payload != PAYLOAD_REBIND) {
+                result.add(payload);
+            }
+        }
+
+        return result;
+    }
+
+    @MetricsListener.Kind
+    private int getKind(final int position) {
+        if (isHeader(position)) {
+            return MetricsListener.KIND_HEADER;
+        } else if (isFooter(position)) {
+            return MetricsListener.KIND_FOOTER;
+        } else if (isSection(position)) {
+            return MetricsListener.KIND_SECTION;
+        } else {
+            return MetricsListener.KIND_ITEM;
+        }
+    }
+
+    @MetricsListener.Kind
+    private int getKindForViewType(final int viewType) {
+        if (viewType == headerViewType) {
+            return MetricsListener.KIND_HEADER;
+        } else if (viewType == footerViewType) {
+            return MetricsListener.KIND_FOOTER;
+        } else if (bindersByViewType.indexOfKey(viewType) >= 0) {
+            final DecorationBinder binder = bindersByViewType.get(viewType);
+
+            if (containsBinder(headers, binder)) {
+                return MetricsListener.KIND_HEADER;
+            } else if (containsBinder(footers, binder)) {
+                return MetricsListener.KIND_FOOTER;
+            } else {
+                return MetricsListener.KIND_SECTION;
+            }
+        } else if (isDecorationViewType(viewType)) {
+            final Decoration decoration = findDecoration(viewType);
+
+            if (headers.contains(decoration)) {
+                return MetricsListener.KIND_HEADER;
+            } else if (footers.contains(decoration)) {
+                return MetricsListener.KIND_FOOTER;
+            } else {
+                return MetricsListener.KIND_SECTION;
+            }
+        } else {
+            return MetricsListener.KIND_ITEM;
+        }
+    }
+
+    private static boolean containsBinder(final List<Decoration> decorations,
+                                          final DecorationBinder binder) {
+        for (int i = 0; i < decorations.size(); i++) {
+            if (decorations.get(i).binder == binder) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void notifyLoadMoreFooter(final int position) {
+        if (loadMoreFooter != null) {
+            final int index = footers.indexOf(loadMoreDecoration);
+
+            // The footer might have been removed through the methods for all footers.
+            if (index >= 0) {
+                loadMoreFooter.onPositionBound(getFooterPosition() + index - position);
+            }
+        }
+    }
+
+    private int getInnerItemCount() {
+        // Without observing, the cache is not kept up to date.
+        if (!itemCountCachingEnabled || !isObservingInner) {
+            return innerAdapter.getItemCount();
+        }
+
+        if (itemCountVerificationEnabled && cachedInnerItemCount != innerAdapter.getItemCount()) {
+            throw new IllegalStateException("The inner adapter changed its item count from "
+                    + cachedInnerItemCount + " to " + innerAdapter.getItemCount()
+                    + " without notifying.");
+        }
+
+        return cachedInnerItemCount;
+    }
+
+    /**
+     * Observes the inner adapter while someone observes this adapter or sections have to move
+     * along with the items. Otherwise the inner adapter would keep this adapter and its Views
+     * alive.
+     */
+    private void updateInnerObservation() {
+        final boolean shouldObserve = observerCount > 0 || !sections.isEmpty();
+
+        if (shouldObserve && !isObservingInner) {
+            isObservingInner = true;
+            cachedInnerItemCount = innerAdapter.getItemCount();
+
+            // Changes in between are not known, so the sections can only be kept in bounds.
+            sections.clamp(cachedInnerItemCount);
+            invalidateSpanSizes(0);
+            invalidatePositionSnapshot();
+
+            innerAdapter.registerAdapterDataObserver(innerObserver);
+        } else if (!shouldObserve && isObservingInner) {
+            isObservingInner = false;
+
+            innerAdapter.unregisterAdapterDataObserver(innerObserver);
+        }
+    }
+
+    private Decoration newDecoration(@Nullable final View view,
+                                     @Nullable final ViewFactory factory) {
+        return newDecoration(view, factory, nextDecorationId++);
+    }
+
+    private Decoration newDecoration(@Nullable final View view,
+                                     @Nullable final ViewFactory factory, final long id) {
+        if (hosts.size() > 1) {
+            checkNoSharedView(view, factory);
+        }
+
+        final Decoration result = new Decoration(view, factory, null, id,
+                viewTypeAllocator.allocate());
+
+        decorationsByViewType.put(result.viewType, result);
+
+        return result;
+    }
+
+    private void checkNoSharedViews(final List<Decoration> decorations) {
+        for (int i = 0; i < decorations.size(); i++) {
+            checkNoSharedView(decorations.get(i).view, decorations.get(i).factory);
+        }
+    }
+
+    /**
+     * Throws if a decoration is added as a View instead of through a factory. That View would
+     * have to be shown by multiple RecyclerViews, but it can only have one parent.
+     */
+    private void checkNoSharedView(@Nullable final View view,
+                                   @Nullable final ViewFactory factory) {
+        if (view != null && factory == null) {
+            throw new IllegalStateException("Headers, footers and sections can only be added as a"
+                    + " View if the adapter is set on a single RecyclerView. Use a layout resource"
+                    + " or a ViewFactory to show them in multiple RecyclerViews at the same time.");
+        }
+    }
+
+    private Decoration newDecoration(@NonNull final DecorationBinder binder) {
+        final int viewType = binder.getViewType(viewTypeAllocator);
+
+        // Binders stay registered after their decorations are removed, as their holders might
+        // still be animated out or come from a shared pool.
+        bindersByViewType.put(viewType, binder);
+
+        return new Decoration(null, null, binder, nextDecorationId++, viewType);
+    }
+
+    private void setDecorationVisible(final Decoration decoration, final int position,
+                                      final boolean visible) {
+        if (decoration.visible != visible) {
+            flushPendingUpdates();
+
+            decoration.visible = visible;
+
+            // The payload allows the ItemAnimator to reuse the holder instead of cross-fading.
+            notifyItemChanged(position, PAYLOAD_VISIBILITY);
+        }
+    }
+
+    private void notifyDecorationChanged(final Decoration decoration, final int position,
+                                         @Nullable final Object payload) {
+        decorationChangeCount++;
+
+        // Without a payload, the ItemAnimator creates a second holder for the change animation.
+        // Dedicated holders wrap the View of the decoration itself, so it would get two parents.
+        if (payload == null && (dedicatedViewTypes || decoration.binder != null)) {
+            notifyItemChanged(position, PAYLOAD_REBIND);
+        } else {
+            notifyItemChanged(position, payload);
+        }
+    }
+
+    private void releaseViews(final List<Decoration> decorations, final Host host) {
+        for (int i = 0; i < decorations.size(); i++) {
+            releaseView(decorations.get(i), host);
+        }
+    }
+
+    private void releaseView(final Decoration decoration, final Host host) {
+        if (decoration.owner == host) {
+            decoration.owner = null;
+
+            if (releaseOnDetachEnabled && decoration.factory != null) {
+                decoration.view = null;
+            }
+        }
+    }
+
+    private void forgetDecoration(final Decoration decoration) {
+        decorationsByViewType.remove(decoration.viewType);
+
+        if (decoration.binder == null) {
+            releaseView(decoration.view);
+        }
+
+        for (int i = 0; i < hosts.size(); i++) {
+            final Host host = hosts.get(i);
+            final View view = host.views.remove(decoration);
+
+            if (decoration.binder == null) {
+                releaseView(view);
+            }
+
+            // The view type is never used again, so drop pooled dedicated holders of it instead
+            // of keeping them and their Views alive. The types of binders are shared.
+            if (decoration.binder == null) {
+                host.recyclerView.getRecycledViewPool().setMaxRecycledViews(decoration.viewType,
+                        0);
+            }
+        }
+    }
+
+    /**
+     * Releases the View of a removed decoration from its dedicated holder, so that it can be
+     * added again right away. A View which is still shown, e.g. while it is animated out, stays
+     * with its holder until that is recycled.
+     */
+    private void releaseView(@Nullable final View view) {
+        if (view != null && view.getParent() == null) {
+            view.setTag(R.id.easy_header_footer_adapter_holder, null);
+        }
+    }
+
+    @Nullable
+    private Host findHost(final ViewGroup recyclerView) {
+        for (int i = 0; i < hosts.size(); i++) {
+            if (hosts.get(i).recyclerView == recyclerView) {
+                return hosts.get(i);
+            }
+        }
+
+        return null;
+    }
+
+    private int addSection(final int realPosition, final Decoration decoration) {
+        if (realPosition < 0 || realPosition > getInnerItemCount()) {
+            forgetDecoration(decoration);
+
+            throw new IndexOutOfBoundsException("Invalid position: " + realPosition
+                    + ", inner item count: " + getInnerItemCount());
+        }
+
+        flushPendingUpdates();
+
+        final int index = sections.add(realPosition, decoration);
+
+        updateInnerObservation();
+        final int position = headers.size() + sections.getBodyPosition(index);
+
+        invalidateSpanSizes(position);
+        invalidatePositionSnapshot();
+        notifyItemInserted(position);
+
+        return index;
+    }
+
+    private void addDecoration(final List<Decoration> decorations, final int index,
+                               final Decoration decoration) {
+        flushPendingUpdates();
+
+        final int position = (decorations == headers ? 0 : getFooterPosition()) + index;
+
+        decorations.add(index, decoration);
+        invalidateSpanSizes(position);
+        invalidatePositionSnapshot();
+
+        notifyItemInserted(position);
+    }
+
+    private void setSingleDecoration(final List<Decoration> decorations, @Nullable final View view,
+                                     final int startPosition) {
+        final int previousCount = decorations.size();
+
+        flushPendingUpdates();
+        invalidateSpanSizes(startPosition);
+
+        if (view == null) {
+            if (previousCount > 0) {
+                for (int i = 0; i < previousCount; i++) {
+                    forgetDecoration(decorations.get(i));
+                }
+
+                decorations.clear();
+                invalidatePositionSnapshot();
+
+                notifyItemRangeRemoved(startPosition, previousCount);
+            }
+
+            return;
+        }
+
+        if (previousCount == 1 && decorations.get(0).view == view) {
+            return;
+        }
+
+        detachFromParent(view);
+
+        if (previousCount == 0) {
+            decorations.add(newDecoration(view, null));
+            invalidatePositionSnapshot();
+
+            notifyItemInserted(startPosition);
+        } else {
+            // Keep the id of the replaced decoration, so that stable ids stay stable.
+            final long id = decorations.get(0).id;
+
+            for (int i = 0; i < previousCount; i++) {
+                forgetDecoration(decorations.get(i));
+            }
+
+            decorations.clear();
+            decorations.add(newDecoration(view, null, id));
+            invalidatePositionSnapshot();
+
+            if (previousCount > 1) {
+                notifyItemRangeRemoved(startPosition + 1, previousCount - 1);
+            }
+
+            notifyItemChanged(startPosition);
+        }
+    }
+
+    private int getViewType(final Decoration decoration, final int containerViewType) {
+        return dedicatedViewTypes || decoration.binder != null ? decoration.viewType
+                : containerViewType;
+    }
+
+    @Nullable
+    private DecorationBinder findBinder(final RecyclerView.ViewHolder holder) {
+        return bindersByViewType.size() == 0 ? null
+                : bindersByViewType.get(holder.getItemViewType());
+    }
+
+    private boolean isInnerHolder(final RecyclerView.ViewHolder holder) {
+        return !(holder instanceof HeaderFooterViewHolder) && findBinder(holder) == null;
+    }
+
+    private boolean isDecorationViewType(final int viewType) {
+        return decorationsByViewType.indexOfKey(viewType) >= 0;
+    }
+
+    private Decoration findDecoration(final int viewType) {
+        final Decoration result = decorationsByViewType.get(viewType);
+
+        if (result == null) {
+            throw new IllegalStateException("No header or footer found for viewType: " + viewType);
+        }
+
+        return result;
+    }
+
+    @Nullable
+    private HeaderFooterSpanSizeLookup initLayoutManager(
+            final RecyclerView recyclerView, final RecyclerView.LayoutManager layoutManager) {
+        if (layoutManager instanceof GridLayoutManager) {
+            final GridLayoutManager castedLayoutManager = (GridLayoutManager) layoutManager;
+            SpanSizeLookup existingLookup = castedLayoutManager.getSpanSizeLookup();
+
+            // Do not wrap our own lookup again if the same LayoutManager is reused.
+            if (existingLookup instanceof HeaderFooterSpanSizeLookup) {
+                existingLookup = ((HeaderFooterSpanSizeLookup) existingLookup).getInnerLookup();
+            }
+
+            final HeaderFooterSpanSizeLookup result = new HeaderFooterSpanSizeLookup(this,
+                    recyclerView, castedLayoutManager, existingLookup);
+
+            castedLayoutManager.setSpanSizeLookup(result);
+
+            return result;
+        }
+
+        return null;
+    }
+
+    /**
+     * Runs the specified Runnable in the next animation frame of the RecyclerView this adapter is
+     * attached to, so that it runs before the next layout. If the RecyclerView is not attached to
+     * a window, it runs on the next iteration of the main thread instead.
+     *
+     * @param runnable The Runnable.
+     */
+    void postOnAnimation(@NonNull final Runnable runnable) {
+        if (!hosts.isEmpty() && ViewCompat.isAttachedToWindow(hosts.get(0).recyclerView)) {
+            ViewCompat.postOnAnimation(hosts.get(0).recyclerView, runnable);
+        } else {
+            mainHandler.post(runnable);
+        }
+    }
+
+    /**
+     * Marks the snapshot as outdated. Copying the positions of all sections on each change would
+     * be expensive, so a new snapshot is only published once for all changes made before the
+     * posted message runs, or earlier if it is requested on the main thread.
+     */
+    private void invalidatePositionSnapshot() {
+        isPositionSnapshotStale = true;
+
+        if (!isPositionSnapshotScheduled) {
+            isPositionSnapshotScheduled = true;
+
+            mainHandler.post(positionSnapshotRunnable);
+        }
+    }
+
+    private void publishPositionSnapshot() {
+        isPositionSnapshotStale = false;
+        positionSnapshot = positionIndex.snapshot(++positionSnapshotVersion, getInnerItemCount());
+    }
+
+    private void invalidateSpanSizes(final int fromPosition) {
+        for (int i = 0; i < hosts.size(); i++) {
+            final HeaderFooterSpanSizeLookup spanSizeLookup = hosts.get(i).spanSizeLookup;
+
+            if (spanSizeLookup != null) {
+                spanSizeLookup.invalidateFrom(fromPosition);
+            }
+        }
+    }
+
+    private void bind(final HeaderFooterViewHolder holder, final int position) {
+        final ViewGroup holderItemView = (ViewGroup) holder.itemView;
+        final Decoration decoration = getDecoration(position);
+
+        if (decoration == null) {
+            return;
+        }
+
+        final View viewToAdd = decoration.getView(holder.host, holderItemView);
+
+        waitingContainers.remove(holder);
+
+        if (viewToAdd.getTag(R.id.easy_header_footer_adapter_holder) != null) {
+            // The View is still the item of a dedicated holder, see releaseHolder.
+            holderItemView.removeAllViews();
+            waitingContainers.put(holder, viewToAdd);
+        } else if (viewToAdd.getParent() != holderItemView) {
+            detachFromParent(viewToAdd);
+            holderItemView.removeAllViews();
+
+            // Otherwise the container would give the View its default of filling the whole
+            // parent, which is then copied onto the holder.
+            if (viewToAdd.getLayoutParams() == null) {
+                viewToAdd.setLayoutParams(new ViewGroup.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+            }
+
+            holderItemView.addView(viewToAdd);
+        }
+
+        // The View itself is only collapsed if it is bound without a container.
+        expand(viewToAdd);
+
+        if (decoration.visible) {
+            final ViewGroup.LayoutParams layoutParams = viewToAdd.getLayoutParams();
+
+            if (layoutParams == null) {
+                updateLayoutParams(holder, ViewGroup.LayoutParams.MATCH_PARENT,
+                        ViewGroup.LayoutParams.WRAP_CONTENT);
+            } else {
+                updateLayoutParams(holder, layoutParams.width, layoutParams.height);
+            }
+            holderItemView.setVisibility(View.VISIBLE);
+        } else {
+            updateLayoutParams(holder, 0, 0);
+            holderItemView.setVisibility(View.GONE);
+        }
+    }
+
+    private void collapse(final View view) {
+        if (view.getTag(R.id.easy_header_footer_adapter_collapsed_state) != null) {
+            return;
+        }
+
+        ViewGroup.LayoutParams layoutParams = view.getLayoutParams();
+
+        if (layoutParams == null) {
+            layoutParams = new ViewGroup.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT);
+        }
+
+        // The original state is kept on the View, as it might be shown in multiple holders.
+        view.setTag(R.id.easy_header_footer_adapter_collapsed_state,
+                new CollapsedState(layoutParams.width, layoutParams.height,
+                        view.getVisibility()));
+
+        layoutParams.width = 0;
+        layoutParams.height = 0;
+
+        view.setLayoutParams(layoutParams);
+        view.setVisibility(View.GONE);
+    }
+
+    private void expand(final View view) {
+        final CollapsedState state =
+                (CollapsedState) view.getTag(R.id.easy_header_footer_adapter_collapsed_state);
+
+        if (state == null) {
+            return;
+        }
+
+        final ViewGroup.LayoutParams layoutParams = view.getLayoutParams();
+
+        layoutParams.width = state.width;
+        layoutParams.height = state.height;
+
+        view.setTag(R.id.easy_header_footer_adapter_collapsed_state, null);
+        view.setLayoutParams(layoutParams);
+        view.setVisibility(state.visibility);
+    }
+
+    private void updateLayoutParams(final HeaderFooterViewHolder holder, final int width,
+                                    final int height) {
+        final View itemView = holder.itemView;
+        final boolean isStaggered = holder.host != null
+                && holder.host.layoutManager instanceof StaggeredGridLayoutManager;
+        final ViewGroup.LayoutParams layoutParams = itemView.getLayoutParams();
+
+        final boolean needsNewLayoutParams = layoutParams == null || (isStaggered
+                && !(layoutParams instanceof StaggeredGridLayoutManager.LayoutParams));
+
+        if (needsNewLayoutParams) {
+            if (isStaggered) {
+                final StaggeredGridLayoutManager.LayoutParams staggeredLayoutParams =
+                        new StaggeredGridLayoutManager.LayoutParams(width, height);
+
+                staggeredLayoutParams.setFullSpan(true);
+                itemView.setLayoutParams(staggeredLayoutParams);
+            } else {
+                itemView.setLayoutParams(new ViewGroup.LayoutParams(width, height));
+            }
+
+            return;
+        }
+
+        // Update the existing LayoutParams in place and only request a layout if something changed.
+        boolean changed = false;
+
+        if (layoutParams.width != width || layoutParams.height != height) {
+            layoutParams.width = width;
+            layoutParams.height = height;
+            changed = true;
+        }
+
+        if (isStaggered) {
+            final StaggeredGridLayoutManager.LayoutParams staggeredLayoutParams =
+                    (StaggeredGridLayoutManager.LayoutParams) layoutParams;
+
+            if (!staggeredLayoutParams.isFullSpan()) {
+                staggeredLayoutParams.setFullSpan(true);
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            itemView.setLayoutParams(layoutParams);
+        }
+    }
+
+    private void bind(final DecorationViewHolder holder, final int position) {
+        final Decoration decoration = getDecoration(position);
+
+        holder.itemView.setTag(R.id.easy_header_footer_adapter_holder, holder);
+
+        if (decoration != null) {
+            if (decoration.visible) {
+                expand(holder.itemView);
+            } else {
+                collapse(holder.itemView);
+            }
+        }
+
+        setFullSpan(holder.itemView);
+    }
+
+    /**
+     * Releases the View of the holder and moves it into a container which has been waiting for
+     * it, if there is one.
+     */
+    private void releaseHolder(final DecorationViewHolder holder) {
+        if (holder.itemView.getTag(R.id.easy_header_footer_adapter_holder) != holder) {
+            return;
+        }
+
+        holder.itemView.setTag(R.id.easy_header_footer_adapter_holder, null);
+
+        for (final Map.Entry<HeaderFooterViewHolder, View> entry : waitingContainers.entrySet()) {
+            if (entry.getValue() == holder.itemView) {
+                final HeaderFooterViewHolder container = entry.getKey();
+                final int position = container.getAdapterPosition();
+
+                waitingContainers.remove(container);
+
+                if (position != RecyclerView.NO_POSITION) {
+                    bind(container, position);
+                }
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gives the View full span LayoutParams if the host uses a StaggeredGridLayoutManager. The
+     * LayoutManager would otherwise replace LayoutParams of another type with ones of its own,
+     * which only span a single column.
+     */
+    private void setFullSpan(final View itemView, @Nullable final Host host) {
+        if (host == null || !(host.layoutManager instanceof StaggeredGridLayoutManager)) {
+            return;
+        }
+
+        final ViewGroup.LayoutParams layoutParams = itemView.getLayoutParams();
+
+        if (layoutParams instanceof StaggeredGridLayoutManager.LayoutParams) {
+            setFullSpan(itemView);
+        } else {
+            final StaggeredGridLayoutManager.LayoutParams staggeredLayoutParams;
+
+            if (layoutParams == null) {
+                staggeredLayoutParams = new StaggeredGridLayoutManager.LayoutParams(
+                        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+            } else if (layoutParams instanceof ViewGroup.MarginLayoutParams) {
+                staggeredLayoutParams = new StaggeredGridLayoutManager.LayoutParams(
+                        (ViewGroup.MarginLayoutParams) layoutParams);
+            } else {
+                staggeredLayoutParams = new StaggeredGridLayoutManager.LayoutParams(layoutParams);
+            }
+
+            staggeredLayoutParams.setFullSpan(true);
+            itemView.setLayoutParams(staggeredLayoutParams);
+        }
+    }
+
+    private void setFullSpan(final View itemView) {
+        final ViewGroup.LayoutParams layoutParams = itemView.getLayoutParams();
+
+        if (layoutParams instanceof StaggeredGridLayoutManager.LayoutParams) {
+            final StaggeredGridLayoutManager.LayoutParams castedLayoutParams =
+                    (StaggeredGridLayoutManager.LayoutParams) layoutParams;
+
+            if (!castedLayoutParams.isFullSpan()) {
+                castedLayoutParams.setFullSpan(true);
+            }
+        }
+    }
+
+    /**
+     * Removes the View from its parent. A View which is still the item of a dedicated holder is
+     * left alone, as the RecyclerView still manages it. It is moved once the holder is recycled.
+     */
+    private void detachFromParent(@NonNull final View view) {
+        final ViewGroup parent = (ViewGroup) view.getParent();
+
+        if (parent != null && view.getTag(R.id.easy_header_footer_adapter_holder) == null) {
+            parent.removeView(view);
+        }
+    }
+
+    private ListUpdateCallback getUpdateCallback() {
+        if (batchingUpdateCallback == null) {
+            return updateCallback;
+        }
+
+        if (!canDeferUpdates()) {
+            flushPendingUpdates();
+
+            return updateCallback;
+        }
+
+        if (!isFlushScheduled) {
+            isFlushScheduled = true;
+
+            ViewCompat.postOnAnimation(hosts.get(0).recyclerView, flushRunnable);
+        }
+
+        hasPendingUpdates = true;
+
+        return batchingUpdateCallback;
+    }
+
+    /**
+     * Returns if notifications can wait for the next animation callback. Nothing is saved if
+     * nobody is listening. A RecyclerView which is detached or waits for a layout might lay out
+     * before the callback runs and would then see the changed data without the notifications.
+     * The same goes for a RecyclerView which scrolls, as flings and prefetches run on their own.
+     */
+    private boolean canDeferUpdates() {
+        if (hosts.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < hosts.size(); i++) {
+            final RecyclerView recyclerView = hosts.get(i).recyclerView;
+
+            if (!ViewCompat.isAttachedToWindow(recyclerView) || recyclerView.isLayoutRequested()
+                    || recyclerView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private class InnerAdapterDataObserver extends RecyclerView.AdapterDataObserver {
+
+        @Override
+        public void onChanged() {
+            cachedInnerItemCount = innerAdapter.getItemCount();
+
+            flushPendingUpdates();
+            sections.clamp(innerAdapter.getItemCount());
+            invalidateSpanSizes(0);
+            invalidatePositionSnapshot();
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onItemRangeChanged(final int positionStart, final int itemCount) {
+            onItemRangeChanged(positionStart, itemCount, null);
+        }
+
+        @Override
+        public void onItemRangeChanged(final int positionStart, final int itemCount,
+                                       final Object payload) {
+            invalidateSpanSizes(getDelegatedPosition(positionStart));
+
+            positionIndex.dispatchChanged(positionStart, itemCount, payload,
+                    updateCallbackBridge.wrap(getUpdateCallback()));
+        }
+
+        @Override
+        public void onItemRangeInserted(final int positionStart, final int itemCount) {
+            cachedInnerItemCount += itemCount;
+
+            invalidateSpanSizes(getDelegatedPosition(positionStart));
+
+            positionIndex.dispatchInserted(positionStart, itemCount,
+                    updateCallbackBridge.wrap(getUpdateCallback()));
+        }
+
+        @Override
+        public void onItemRangeRemoved(final int positionStart, final int itemCount) {
+            cachedInnerItemCount -= itemCount;
+
+            invalidateSpanSizes(getDelegatedPosition(positionStart));
+
+            positionIndex.dispatchRemoved(positionStart, itemCount,
+                    updateCallbackBridge.wrap(getUpdateCallback()));
+        }
+
+        @Override
+        public void onItemRangeMoved(final int fromPosition, final int toPosition,
+                                     final int itemCount) {
+            invalidateSpanSizes(Math.min(getDelegatedPosition(fromPosition),
+                    getDelegatedPosition(toPosition)));
+
+            positionIndex.dispatchMoved(fromPosition, toPosition, itemCount,
+                    updateCallbackBridge.wrap(getUpdateCallback()));
+        }
+    }
+
+    /**
+     * Dispatches pending notifications before a touch or a fling can scroll a RecyclerView, as
+     * the scroll would otherwise see the changed data without the notifications.
+     */
+    private class FlushListener extends RecyclerView.OnScrollListener
+            implements RecyclerView.OnItemTouchListener {
+
+        @Override
+        public boolean onInterceptTouchEvent(final RecyclerView recyclerView,
+                                             final MotionEvent event) {
+            if (hasPendingUpdates) {
+                flushPendingUpdates();
+            }
+
+            return false;
+        }
+
+        @Override
+        public void onTouchEvent(final RecyclerView recyclerView, final MotionEvent event) {
+        }
+
+        @Override
+        public void onRequestDisallowInterceptTouchEvent(final boolean disallowIntercept) {
+        }
+
+        @Override
+        public void onScrollStateChanged(final RecyclerView recyclerView, final int newState) {
+            if (hasPendingUpdates && newState != RecyclerView.SCROLL_STATE_IDLE) {
+                flushPendingUpdates();
+            }
+        }
+    }
+
+    private class MetricsObserver extends RecyclerView.AdapterDataObserver {
+
+        @Override
+        public void onChanged() {
+            metricsListener.onDataSetChanged();
+        }
+
+        @Override
+        public void onItemRangeChanged(final int positionStart, final int itemCount) {
+            metricsListener.onItemRangeNotified(itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(final int positionStart, final int itemCount,
+                                       final Object payload) {
+            metricsListener.onItemRangeNotified(itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(final int positionStart, final int itemCount) {
+            metricsListener.onItemRangeNotified(itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(final int positionStart, final int itemCount) {
+            metricsListener.onItemRangeNotified(itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(final int fromPosition, final int toPosition,
+                                     final int itemCount) {
+            metricsListener.onItemRangeNotified(itemCount);
+        }
+    }
+
+    /**
+     * Keeps the last bound position up to date, so that the {@link LoadMoreFooter} can check its
+     * distance again after a page has been loaded.
+     */
+    private class BoundPositionObserver extends RecyclerView.AdapterDataObserver {
+
+        @Override
+        public void onChanged() {
+            lastBoundPosition = RecyclerView.NO_POSITION;
+        }
+
+        @Override
+        public void onItemRangeInserted(final int positionStart, final int itemCount) {
+            if (lastBoundPosition >= positionStart) {
+                lastBoundPosition += itemCount;
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(final int positionStart, final int itemCount) {
+            if (lastBoundPosition >= positionStart + itemCount) {
+                lastBoundPosition -= itemCount;
+            } else if (lastBoundPosition >= positionStart) {
+                lastBoundPosition = RecyclerView.NO_POSITION;
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(final int fromPosition, final int toPosition,
+                                     final int itemCount) {
+            if (lastBoundPosition == RecyclerView.NO_POSITION) {
+                return;
+            }
+
+            if (lastBoundPosition == fromPosition) {
+                lastBoundPosition = toPosition;
+            } else if (fromPosition < toPosition && lastBoundPosition > fromPosition
+                    && lastBoundPosition <= toPosition) {
+                lastBoundPosition--;
+            } else if (fromPosition > toPosition && lastBoundPosition >= toPosition
+                    && lastBoundPosition < fromPosition) {
+                lastBoundPosition++;
+            }
+        }
+    }
+
+    private class AdapterUpdateCallback implements ListUpdateCallback {
+
+        // The snapshot is invalidated here, so that it does not show batched changes before the
+        // RecyclerView knows about them.
+        @Override
+        public void onInserted(final int position, final int count) {
+            invalidatePositionSnapshot();
+            notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            invalidatePositionSnapshot();
+            notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            invalidatePositionSnapshot();
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, final Object payload) {
+            notifyItemRangeChanged(position, count, payload);
+        }
+    }
+
+    /**
+     * Forwards the translated notifications of the {@link PositionIndex} to the current
+     * {@link ListUpdateCallback}, which is either the adapter itself or the batching callback.
+     */
+    private static final class UpdateCallbackBridge implements PositionIndex.UpdateCallback {
+
+        private ListUpdateCallback target;
+
+        UpdateCallbackBridge wrap(final ListUpdateCallback target) {
+            this.target = target;
+
+            return this;
+        }
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            target.onInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            target.onRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            target.onMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, final Object payload) {
+            target.onChanged(position, count, payload);
+        }
+    }
+
+    /**
+     * Listener for payloads of headers and footers.
+     */
+    public interface PayloadListener {
+
+        /**
+         * Called whenever a header or footer is bound. Update the View in place here. The
+         * payloads are empty for a full bind, e.g. when the View is shown again after it has
+         * been scrolled out. Apply the complete state in that case, as payloads which have been
+         * passed while the View was not shown are not delivered.
+         *
+         * @param view     The View of the header or footer.
+         * @param position The position of the header or footer.
+         * @param payloads The payloads, which have been passed since the last bind. Empty for a
+         *                 full bind.
+         */
+        void onBindPayloads(@NonNull View view, int position, @NonNull List<Object> payloads);
+    }
+
+    /**
+     * Factory for headers and footers, which are created the first time they are shown.
+     */
+    public interface ViewFactory {
+
+        /**
+         * Creates the View of the header or footer.
+         *
+         * @param parent The parent, which can be used to generate the LayoutParams.
+         * @return The View.
+         */
+        @NonNull
+        View createView(@NonNull ViewGroup parent);
+    }
+
+    private static final class LayoutViewFactory implements ViewFactory {
+
+        private final int layoutRes;
+
+        LayoutViewFactory(@LayoutRes final int layoutRes) {
+            this.layoutRes = layoutRes;
+        }
+
+        @NonNull
+        @Override
+        public View createView(@NonNull final ViewGroup parent) {
+            return LayoutInflater.from(parent.getContext()).inflate(layoutRes, parent, false);
+        }
+    }
+
+    private static final class Decoration {
+
+        final ViewFactory factory;
+        final DecorationBinder binder;
+        final long id;
+        final int viewType;
+        View view;
+        Host owner;
+
+        boolean visible = true;
+
+        Decoration(final View view, final ViewFactory factory, final DecorationBinder binder,
+                   final long id, final int viewType) {
+            this.view = view;
+            this.factory = factory;
+            this.binder = binder;
+            this.id = id;
+            this.viewType = viewType;
+        }
+
+        /**
+         * Returns the View for the specified host and creates it if needed. The first host gets
+         * the shared View, all further hosts which are attached at the same time get their own.
+         * Views which have not been created by a factory are only allowed with a single host.
+         */
+        View getView(@Nullable final Host host, final ViewGroup parent) {
+            if (factory == null || host == null || owner == null || owner == host) {
+                if (host != null && factory != null) {
+                    owner = host;
+                }
+
+                if (view == null) {
+                    view = factory.createView(parent);
+                }
+
+                return view;
+            }
+
+            View result = host.views.get(this);
+
+            if (result == null) {
+                result = factory.createView(parent);
+
+                host.views.put(this, result);
+            }
+
+            return result;
+        }
+
+        @Nullable
+        View peekView(@Nullable final Host host) {
+            if (factory == null || host == null || owner == null || owner == host) {
+                return view;
+            }
+
+            return host.views.get(this);
+        }
+    }
+
+    /**
+     * The state of a RecyclerView this adapter is attached to.
+     */
+    private static final class Host {
+
+        final RecyclerView recyclerView;
+        final RecyclerView.LayoutManager layoutManager;
+        final HeaderFooterSpanSizeLookup spanSizeLookup;
+        final Map<Decoration, View> views = new IdentityHashMap<>();
+
+        Host(final RecyclerView recyclerView, final RecyclerView.LayoutManager layoutManager,
+             @Nullable final HeaderFooterSpanSizeLookup spanSizeLookup) {
+            this.recyclerView = recyclerView;
+            this.layoutManager = layoutManager;
+            this.spanSizeLookup = spanSizeLookup;
+        }
+    }
+
+    private static final class CollapsedState {
+
+        final int width;
+        final int height;
+        final int visibility;
+
+        CollapsedState(final int width, final int height, final int visibility) {
+            this.width = width;
+            this.height = height;
+            this.visibility = visibility;
+        }
+    }
+
+    private static class HeaderFooterViewHolder extends RecyclerView.ViewHolder {
+
+        final Host host;
+
+        HeaderFooterViewHolder(final View itemView, @Nullable final Host host) {
+            super(itemView);
+
+            this.host = host;
+        }
+    }
+
+    private static class DecorationViewHolder extends HeaderFooterViewHolder {
+        DecorationViewHolder(final View itemView, @Nullable final Host host) {
+            super(itemView, host);
         }
     }
 }
@@ -0,0 +1,235 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Helper for the inner adapter of an {@link EasyHeaderFooterAdapter}, which holds its list of
+ * items. New lists are compared to the current one on a background thread using the
+ * {@link DiffUtil}, instead of calling {@link RecyclerView.Adapter#notifyDataSetChanged()}.
+ * The result is dispatched on the main thread through the inner adapter, so the
+ * {@link EasyHeaderFooterAdapter} shifts all changes by the current amount of headers.
+ * <p>
+ * The inner adapter should use {@link #getItem(int)} and {@link #getItemCount()} to access
+ * the data. Lists passed to {@link #submitList(List)} must not be modified afterwards.
+ *
+ * @param <T> The type of the items.
+ * @author Ruben Gees
+ */
+public class HeaderFooterListDiffer<T> {
+
+    private static final Object EXECUTOR_LOCK = new Object();
+    private static Executor defaultExecutor;
+
+    private final RecyclerView.Adapter innerAdapter;
+    private final ItemCallback<T> itemCallback;
+    private final Executor backgroundExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private List<T> list = Collections.emptyList();
+    private int maxScheduledGeneration;
+
+    /**
+     * The constructor. Diffs are computed on a shared pool of background threads.
+     *
+     * @param innerAdapter The inner adapter using this differ.
+     * @param itemCallback The callback to compare items with.
+     */
+    @SuppressWarnings("unused")
+    public HeaderFooterListDiffer(@NonNull final RecyclerView.Adapter innerAdapter,
+                                  @NonNull final ItemCallback<T> itemCallback) {
+        this(innerAdapter, itemCallback, getDefaultExecutor());
+    }
+
+    /**
+     * The constructor.
+     *
+     * @param innerAdapter       The inner adapter using this differ.
+     * @param itemCallback       The callback to compare items with.
+     * @param backgroundExecutor The executor to compute diffs on.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public HeaderFooterListDiffer(@NonNull final RecyclerView.Adapter innerAdapter,
+                                  @NonNull final ItemCallback<T> itemCallback,
+                                  @NonNull final Executor backgroundExecutor) {
+        this.innerAdapter = innerAdapter;
+        this.itemCallback = itemCallback;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    private static Executor getDefaultExecutor() {
+        synchronized (EXECUTOR_LOCK) {
+            if (defaultExecutor == null) {
+                defaultExecutor = Executors.newFixedThreadPool(2);
+            }
+
+            return defaultExecutor;
+        }
+    }
+
+    /**
+     * Returns the current list. This is the list, which has been dispatched to the adapter last.
+     *
+     * @return The current list.
+     */
+    @SuppressWarnings("unused")
+    @NonNull
+    public List<T> getCurrentList() {
+        return list;
+    }
+
+    /**
+     * Returns the item at the specified position of the current list.
+     *
+     * @param position The position in the inner adapter.
+     * @return The item.
+     */
+    @SuppressWarnings("unused")
+    public T getItem(final int position) {
+        return list.get(position);
+    }
+
+    /**
+     * Returns the amount of items in the current list.
+     *
+     * @return The amount of items.
+     */
+    @SuppressWarnings("unused")
+    public int getItemCount() {
+        return list.size();
+    }
+
+    /**
+     * Submits a new list. The difference to the current list is computed on a background thread
+     * and dispatched afterwards on the main thread. If another list is submitted before that
+     * happens, the result is dropped.
+     *
+     * @param newList The new list or null to clear.
+     */
+    @MainThread
+    @SuppressWarnings("unused")
+    public void submitList(@Nullable final List<T> newList) {
+        if (newList == list) {
+            return;
+        }
+
+        final int runGeneration = ++maxScheduledGeneration;
+
+        if (newList == null) {
+            final int removedCount = list.size();
+
+            list = Collections.emptyList();
+            innerAdapter.notifyItemRangeRemoved(0, removedCount);
+
+            return;
+        }
+
+        if (list.isEmpty()) {
+            list = newList;
+            innerAdapter.notifyItemRangeInserted(0, newList.size());
+
+            return;
+        }
+
+        final List<T> oldList = list;
+
+        backgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                    @Override
+                    public int getOldListSize() {
+                        return oldList.size();
+                    }
+
+                    @Override
+                    public int getNewListSize() {
+                        return newList.size();
+                    }
+
+                    @Override
+                    public boolean areItemsTheSame(final int oldItemPosition,
+                                                   final int newItemPosition) {
+                        return itemCallback.areItemsTheSame(oldList.get(oldItemPosition),
+                                newList.get(newItemPosition));
+                    }
+
+                    @Override
+                    public boolean areContentsTheSame(final int oldItemPosition,
+                                                      final int newItemPosition) {
+                        return itemCallback.areContentsTheSame(oldList.get(oldItemPosition),
+                                newList.get(newItemPosition));
+                    }
+
+                    @Override
+                    public Object getChangePayload(final int oldItemPosition,
+                                                   final int newItemPosition) {
+                        return itemCallback.getChangePayload(oldList.get(oldItemPosition),
+                                newList.get(newItemPosition));
+                    }
+                });
+
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (maxScheduledGeneration == runGeneration) {
+                            list = newList;
+
+                            result.dispatchUpdatesTo(innerAdapter);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Callback for comparing two items.
+     *
+     * @param <T> The type of the items.
+     */
+    public abstract static class ItemCallback<T> {
+
+        /**
+         * Returns if the two items represent the same object.
+         *
+         * @param oldItem The item in the old list.
+         * @param newItem The item in the new list.
+         * @return True if both items represent the same object.
+         */
+        public abstract boolean areItemsTheSame(@NonNull T oldItem, @NonNull T newItem);
+
+        /**
+         * Returns if the two items have the same content. This is only called if
+         * {@link #areItemsTheSame(Object, Object)} returned true.
+         *
+         * @param oldItem The item in the old list.
+         * @param newItem The item in the new list.
+         * @return True if both items have the same content.
+         */
+        public abstract boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem);
+
+        /**
+         * Returns a payload describing the change between the two items. The default
+         * implementation returns null, which leads to a full bind.
+         *
+         * @param oldItem The item in the old list.
+         * @param newItem The item in the new list.
+         * @return The payload or null.
+         */
+        @Nullable
+        public Object getChangePayload(@NonNull final T oldItem, @NonNull final T newItem) {
+            return null;
+        }
+    }
+}
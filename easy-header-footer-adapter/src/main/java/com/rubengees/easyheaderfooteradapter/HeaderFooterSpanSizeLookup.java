@@ -0,0 +1,93 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.GridLayoutManager.SpanSizeLookup;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * {@link SpanSizeLookup} which lets headers, footers and sections span the full width and
+ * delegates all other positions to the lookup which was set on the {@link GridLayoutManager}
+ * before.
+ * <p>
+ * Span indices are cached through the built-in cache. Span group indices are cached through a
+ * {@link SpanGroupIndexCache}, which the adapter invalidates from the first position affected by a
+ * change. It is only reset completely if the span count or the whole data set changes, or if
+ * {@link #invalidateSpanIndexCache()} is called outside of a layout.
+ * <p>
+ * Both caches are only used if the wrapped lookup caches its span indices as well, as its span
+ * sizes might otherwise change without a notification. The default lookup of the
+ * {@link GridLayoutManager} is the exception, as its span sizes never change.
+ *
+ * @author Ruben Gees
+ */
+final class HeaderFooterSpanSizeLookup extends SpanSizeLookup
+        implements SpanGroupIndexCache.SpanSizeProvider {
+
+    private final EasyHeaderFooterAdapter adapter;
+    private final RecyclerView recyclerView;
+    private final GridLayoutManager layoutManager;
+    private final SpanSizeLookup innerLookup;
+    private final SpanGroupIndexCache spanGroupIndexCache = new SpanGroupIndexCache(this);
+
+    HeaderFooterSpanSizeLookup(@NonNull final EasyHeaderFooterAdapter adapter,
+                               @NonNull final RecyclerView recyclerView,
+                               @NonNull final GridLayoutManager layoutManager,
+                               @NonNull final SpanSizeLookup innerLookup) {
+        this.adapter = adapter;
+        this.recyclerView = recyclerView;
+        this.layoutManager = layoutManager;
+        this.innerLookup = innerLookup;
+
+        setSpanIndexCacheEnabled(innerLookup.isSpanIndexCacheEnabled()
+                || innerLookup instanceof GridLayoutManager.DefaultSpanSizeLookup);
+    }
+
+    @NonNull
+    SpanSizeLookup getInnerLookup() {
+        return innerLookup;
+    }
+
+    @Override
+    public int getSpanSize(final int position) {
+        if (adapter.isDecoration(position)) {
+            return layoutManager.getSpanCount();
+        }
+
+        return innerLookup.getSpanSize(adapter.getRealPosition(position));
+    }
+
+    @Override
+    public int getSpanGroupIndex(final int adapterPosition, final int spanCount) {
+        if (!isSpanIndexCacheEnabled()) {
+            return super.getSpanGroupIndex(adapterPosition, spanCount);
+        }
+
+        return spanGroupIndexCache.getSpanGroupIndex(adapterPosition, spanCount);
+    }
+
+    @Override
+    public void invalidateSpanIndexCache() {
+        super.invalidateSpanIndexCache();
+
+        innerLookup.invalidateSpanIndexCache();
+
+        // The GridLayoutManager calls this during the layout for every change of the adapter,
+        // which already invalidated the span group indices after the change. Any other call is
+        // meant to drop everything.
+        if (!recyclerView.isComputingLayout()) {
+            spanGroupIndexCache.invalidate();
+        }
+    }
+
+    /**
+     * Invalidates all cached values at or after the specified position.
+     *
+     * @param position The first position which changed.
+     */
+    void invalidateFrom(final int position) {
+        super.invalidateSpanIndexCache();
+
+        spanGroupIndexCache.invalidateFrom(position);
+    }
+}
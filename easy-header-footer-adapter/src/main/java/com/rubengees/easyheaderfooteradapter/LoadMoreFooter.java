@@ -0,0 +1,257 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.IntDef;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.View;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A footer for endless scrolling. It requests the next page as soon as an item within the
+ * prefetch distance of the footer is bound. Only one request is made at a time.
+ * <p>
+ * The footer has the states idle, loading, error and end. Changes of the state are bound to the
+ * same View through the {@link StateBinder}, so they do not cause any notifications of the
+ * adapter. Set it through {@link EasyHeaderFooterAdapter#setLoadMoreFooter(LoadMoreFooter)}.
+ *
+ * @author Ruben Gees
+ */
+public class LoadMoreFooter {
+
+    /**
+     * No page is being loaded. The next page is requested once the footer comes close.
+     */
+    public static final int STATE_IDLE = 0;
+
+    /**
+     * A page is being loaded.
+     */
+    public static final int STATE_LOADING = 1;
+
+    /**
+     * Loading the last page failed. Call {@link #retry()} to request it again.
+     */
+    public static final int STATE_ERROR = 2;
+
+    /**
+     * All pages have been loaded.
+     */
+    public static final int STATE_END = 3;
+
+    private static final int DEFAULT_PREFETCH_DISTANCE = 5;
+
+    private final View view;
+    private final StateBinder stateBinder;
+    private final Callback callback;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable loadMoreRunnable = new Runnable() {
+        @Override
+        public void run() {
+            callback.onLoadMore();
+        }
+    };
+
+    private Runnable idleCheck;
+    private int prefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+
+    @State
+    private int state = STATE_IDLE;
+
+    /**
+     * The constructor.
+     *
+     * @param view        The View of the footer.
+     * @param stateBinder The binder for showing the current state on the View.
+     * @param callback    The callback, which is notified to load the next page.
+     */
+    public LoadMoreFooter(@NonNull final View view, @NonNull final StateBinder stateBinder,
+                          @NonNull final Callback callback) {
+        this.view = view;
+        this.stateBinder = stateBinder;
+        this.callback = callback;
+
+        stateBinder.bind(view, state);
+    }
+
+    /**
+     * Returns the View of the footer.
+     *
+     * @return The View.
+     */
+    @NonNull
+    public View getView() {
+        return view;
+    }
+
+    /**
+     * Returns the amount of items before the footer at which the next page is requested.
+     *
+     * @return The prefetch distance.
+     */
+    @SuppressWarnings("unused")
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+
+    /**
+     * Sets the amount of items before the footer at which the next page is requested.
+     * The default is 5.
+     *
+     * @param prefetchDistance The prefetch distance.
+     */
+    @SuppressWarnings("unused")
+    public void setPrefetchDistance(final int prefetchDistance) {
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return The state.
+     */
+    @State
+    @SuppressWarnings("unused")
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * Notifies that the requested page has been loaded. The next page is requested once the
+     * footer comes close again, or right away if it is still close, e.g. because the page was
+     * short.
+     */
+    @SuppressWarnings("unused")
+    public void notifyLoadingFinished() {
+        setState(STATE_IDLE);
+
+        // Nothing might be bound anymore, if the page was short or has been bound while loading.
+        // The check is posted, so that the page can be added to the adapter first.
+        if (idleCheck != null) {
+            mainHandler.removeCallbacks(idleCheck);
+            mainHandler.post(idleCheck);
+        }
+    }
+
+    /**
+     * Notifies that loading the requested page failed.
+     */
+    @SuppressWarnings("unused")
+    public void notifyLoadingFailed() {
+        setState(STATE_ERROR);
+    }
+
+    /**
+     * Notifies that there are no more pages.
+     */
+    @SuppressWarnings("unused")
+    public void notifyEndReached() {
+        setState(STATE_END);
+    }
+
+    /**
+     * Requests the page again, which failed to load. Does nothing if not in the error state.
+     */
+    @SuppressWarnings("unused")
+    public void retry() {
+        if (state == STATE_ERROR) {
+            requestLoad();
+        }
+    }
+
+    /**
+     * Resets the footer to the idle state, for example after the data has been refreshed.
+     */
+    @SuppressWarnings("unused")
+    public void reset() {
+        mainHandler.removeCallbacks(loadMoreRunnable);
+
+        if (idleCheck != null) {
+            mainHandler.removeCallbacks(idleCheck);
+        }
+
+        setState(STATE_IDLE);
+    }
+
+    /**
+     * Called by the adapter whenever a position is bound.
+     *
+     * @param distance The distance of the bound position to the footer.
+     */
+    void onPositionBound(final int distance) {
+        if (state == STATE_IDLE && distance <= prefetchDistance) {
+            requestLoad();
+        }
+    }
+
+    /**
+     * Sets the check of the adapter, which passes the distance of the last bound position to
+     * {@link #onPositionBound(int)} again.
+     *
+     * @param idleCheck The check or null to remove it.
+     */
+    void setIdleCheck(@Nullable final Runnable idleCheck) {
+        if (this.idleCheck != null) {
+            mainHandler.removeCallbacks(this.idleCheck);
+        }
+
+        this.idleCheck = idleCheck;
+    }
+
+    private void requestLoad() {
+        setState(STATE_LOADING);
+
+        // Binding happens during a layout pass, in which the adapter must not be modified.
+        mainHandler.post(loadMoreRunnable);
+    }
+
+    private void setState(@State final int state) {
+        if (this.state != state) {
+            this.state = state;
+
+            stateBinder.bind(view, state);
+        }
+    }
+
+    /**
+     * Callback for loading the next page.
+     */
+    public interface Callback {
+
+        /**
+         * Called when the next page should be loaded. Call one of the notify methods of the
+         * footer when done.
+         */
+        void onLoadMore();
+    }
+
+    /**
+     * Binder for showing the current state on the View of the footer.
+     */
+    public interface StateBinder {
+
+        /**
+         * Shows the state on the View. Only the contents of the View should be changed here,
+         * it is not bound through the adapter again.
+         *
+         * @param view  The View of the footer.
+         * @param state The state.
+         */
+        void bind(@NonNull View view, @State int state);
+    }
+
+    /**
+     * Annotation to define the available states.
+     */
+    @IntDef({STATE_IDLE, STATE_LOADING, STATE_ERROR, STATE_END})
+    @Retention(RetentionPolicy.SOURCE)
+    @Target({ElementType.METHOD, ElementType.FIELD, ElementType.PARAMETER})
+    public @interface State {
+    }
+}
@@ -0,0 +1,85 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Listener for the performance of an {@link EasyHeaderFooterAdapter}. It is notified about the
+ * duration of each creation and binding of a ViewHolder and about each notification of the
+ * adapter. Set it through {@link EasyHeaderFooterAdapter#setMetricsListener(MetricsListener)}.
+ * <p>
+ * All methods are called on the main thread while the RecyclerView is laid out, so
+ * implementations should be as cheap as possible. {@link AdapterMetrics} is an implementation
+ * which records histograms.
+ *
+ * @author Ruben Gees
+ */
+public interface MetricsListener {
+
+    /**
+     * A header.
+     */
+    int KIND_HEADER = 0;
+
+    /**
+     * A footer.
+     */
+    int KIND_FOOTER = 1;
+
+    /**
+     * A section.
+     */
+    int KIND_SECTION = 2;
+
+    /**
+     * An item of the inner adapter.
+     */
+    int KIND_ITEM = 3;
+
+    /**
+     * Called after a ViewHolder has been created.
+     * <p>
+     * Without dedicated view types, the ViewHolders of headers and sections share the same view
+     * type and are reported as headers here.
+     *
+     * @param viewType      The view type of the ViewHolder.
+     * @param kind          The kind of the ViewHolder.
+     * @param durationNanos The duration in nanoseconds.
+     */
+    void onViewHolderCreated(int viewType, @Kind int kind, long durationNanos);
+
+    /**
+     * Called after a ViewHolder has been bound.
+     *
+     * @param viewType      The view type of the ViewHolder.
+     * @param kind          The kind of the bound position.
+     * @param durationNanos The duration in nanoseconds.
+     */
+    void onViewHolderBound(int viewType, @Kind int kind, long durationNanos);
+
+    /**
+     * Called when the adapter notified that the whole data set changed.
+     */
+    void onDataSetChanged();
+
+    /**
+     * Called when the adapter notified about a change, insertion, removal or move of a range of
+     * items.
+     *
+     * @param itemCount The amount of affected items.
+     */
+    void onItemRangeNotified(int itemCount);
+
+    /**
+     * Annotation to define the available kinds of items.
+     */
+    @IntDef({KIND_HEADER, KIND_FOOTER, KIND_SECTION, KIND_ITEM})
+    @Retention(RetentionPolicy.SOURCE)
+    @Target({ElementType.METHOD, ElementType.FIELD, ElementType.PARAMETER})
+    @interface Kind {
+    }
+}
@@ -0,0 +1,273 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import java.util.List;
+
+/**
+ * Maps between the positions of the combined list of headers, items, sections and footers and
+ * the positions of the inner adapter. Notifications of the inner adapter are translated to the
+ * combined list, while keeping the sections up to date.
+ * <p>
+ * This class only works on the passed lists and index, which are owned by the adapter. It does
+ * not depend on the Android framework, so it can be benchmarked on the JVM.
+ *
+ * @param <T> The type of the headers, footers and sections.
+ * @author Ruben Gees
+ */
+final class PositionIndex<T> {
+
+    static final int NO_POSITION = -1;
+
+    private final List<T> headers;
+    private final SectionIndex<T> sections;
+    private final List<T> footers;
+
+    PositionIndex(final List<T> headers, final SectionIndex<T> sections, final List<T> footers) {
+        this.headers = headers;
+        this.sections = sections;
+        this.footers = footers;
+    }
+
+    int getItemCount(final int innerItemCount) {
+        return headers.size() + innerItemCount + sections.size() + footers.size();
+    }
+
+    boolean isHeader(final int position) {
+        return position >= 0 && position < headers.size();
+    }
+
+    boolean isFooter(final int position, final int innerItemCount) {
+        final int footerPosition = getFooterPosition(innerItemCount);
+
+        return position >= footerPosition && position < footerPosition + footers.size();
+    }
+
+    int getFooterPosition(final int innerItemCount) {
+        return headers.size() + innerItemCount + sections.size();
+    }
+
+    /**
+     * Returns the index of the section at the specified position.
+     *
+     * @param position The position.
+     * @return The index or -1 if there is no section at the position.
+     */
+    int getSectionIndex(final int position) {
+        if (sections.isEmpty()) {
+            return -1;
+        }
+
+        return sections.indexAt(position - headers.size());
+    }
+
+    /**
+     * Returns the header, footer or section at the specified position.
+     *
+     * @param position       The position.
+     * @param innerItemCount The amount of items of the inner adapter.
+     * @return The header, footer or section or null if an item is at the position.
+     */
+    T getDecoration(final int position, final int innerItemCount) {
+        if (isHeader(position)) {
+            return headers.get(position);
+        } else if (isFooter(position, innerItemCount)) {
+            return footers.get(position - getFooterPosition(innerItemCount));
+        }
+
+        final int sectionIndex = getSectionIndex(position);
+
+        return sectionIndex >= 0 ? sections.get(sectionIndex) : null;
+    }
+
+    /**
+     * Returns the position of the item in the inner adapter. Header positions are mapped to
+     * negative values and footer positions to values after the last item.
+     *
+     * @param position       The position.
+     * @param innerItemCount The amount of items of the inner adapter.
+     * @return The position in the inner adapter or {@link #NO_POSITION} if a section is at the
+     * position.
+     */
+    int getRealPosition(final int position, final int innerItemCount) {
+        final int bodyPosition = position - headers.size();
+
+        if (sections.isEmpty() || bodyPosition < 0) {
+            return bodyPosition;
+        } else if (bodyPosition >= innerItemCount + sections.size()) {
+            return bodyPosition - sections.size();
+        }
+
+        return sections.toInnerPosition(bodyPosition);
+    }
+
+    /**
+     * Returns an immutable copy of the current mapping.
+     *
+     * @param version        The version of the snapshot.
+     * @param innerItemCount The amount of items of the inner adapter.
+     * @return The snapshot.
+     */
+    PositionSnapshot snapshot(final long version, final int innerItemCount) {
+        return new PositionSnapshot(version, headers.size(), innerItemCount, footers.size(),
+                sections.copyBodyPositions());
+    }
+
+    /**
+     * Returns the position of the item at the specified position of the inner adapter.
+     *
+     * @param innerPosition The position in the inner adapter.
+     * @return The position.
+     */
+    int getDelegatedPosition(final int innerPosition) {
+        return headers.size() + sections.toBodyPosition(innerPosition);
+    }
+
+    /**
+     * Returns the last header or section at or before the specified position.
+     *
+     * @param position The position.
+     * @return The position of the header or section or {@link #NO_POSITION}.
+     */
+    int findStickyPosition(final int position) {
+        if (position < 0) {
+            return NO_POSITION;
+        } else if (position < headers.size()) {
+            return position;
+        }
+
+        final int sectionIndex = sections.floorIndex(position - headers.size());
+
+        if (sectionIndex >= 0) {
+            return headers.size() + sections.getBodyPosition(sectionIndex);
+        }
+
+        return headers.isEmpty() ? NO_POSITION : headers.size() - 1;
+    }
+
+    /**
+     * Returns the first header or section after the specified position.
+     *
+     * @param position The position.
+     * @return The position of the header or section or {@link #NO_POSITION}.
+     */
+    int findNextStickyPosition(final int position) {
+        if (position + 1 < headers.size()) {
+            return position + 1;
+        }
+
+        final int sectionIndex = sections.floorIndex(position - headers.size()) + 1;
+
+        if (sectionIndex < sections.size()) {
+            return headers.size() + sections.getBodyPosition(sectionIndex);
+        }
+
+        return NO_POSITION;
+    }
+
+    void dispatchChanged(final int positionStart, final int itemCount, final Object payload,
+                         final UpdateCallback callback) {
+        final int positionEnd = positionStart + itemCount;
+
+        // Sections within the range split it up into multiple ranges.
+        int segmentStart = positionStart;
+
+        while (segmentStart < positionEnd) {
+            final int segmentEnd = findSegmentEnd(segmentStart, positionEnd);
+
+            callback.onChanged(getDelegatedPosition(segmentStart), segmentEnd - segmentStart,
+                    payload);
+
+            segmentStart = segmentEnd;
+        }
+    }
+
+    void dispatchInserted(final int positionStart, final int itemCount,
+                          final UpdateCallback callback) {
+        sections.onInserted(positionStart, itemCount);
+
+        callback.onInserted(getDelegatedPosition(positionStart), itemCount);
+    }
+
+    void dispatchRemoved(final int positionStart, final int itemCount,
+                         final UpdateCallback callback) {
+        // Sections within the range are kept, so the removed items are split up into multiple
+        // ranges. Those are removed from back to front to keep the positions valid.
+        int segmentEnd = positionStart + itemCount;
+
+        while (segmentEnd > positionStart) {
+            final int segmentStart = findSegmentStart(positionStart, segmentEnd);
+
+            callback.onRemoved(getDelegatedPosition(segmentStart), segmentEnd - segmentStart);
+
+            segmentEnd = segmentStart;
+        }
+
+        sections.onRemoved(positionStart, itemCount);
+    }
+
+    void dispatchMoved(final int fromPosition, final int toPosition, final int itemCount,
+                       final UpdateCallback callback) {
+        // The RecyclerView only supports moves of single items, so a moved range is split up
+        // into one move per item. Each of those is applied in constant time.
+        if (fromPosition < toPosition) {
+            for (int i = 0; i < itemCount; i++) {
+                dispatchMoved(fromPosition, toPosition + itemCount - 1, callback);
+            }
+        } else {
+            for (int i = 0; i < itemCount; i++) {
+                dispatchMoved(fromPosition + i, toPosition + i, callback);
+            }
+        }
+    }
+
+    private void dispatchMoved(final int fromPosition, final int toPosition,
+                               final UpdateCallback callback) {
+        final boolean crossesSection = fromPosition < toPosition
+                ? sections.hasSectionIn(fromPosition, toPosition)
+                : sections.hasSectionIn(toPosition, fromPosition);
+
+        if (!crossesSection) {
+            callback.onMoved(getDelegatedPosition(fromPosition), getDelegatedPosition(toPosition));
+        } else {
+            // Sections in between shift like for a removal followed by an insertion. A single
+            // move can't express that, so do exactly that.
+            callback.onRemoved(getDelegatedPosition(fromPosition), 1);
+            sections.onRemoved(fromPosition, 1);
+            sections.onInserted(toPosition, 1);
+            callback.onInserted(getDelegatedPosition(toPosition), 1);
+        }
+    }
+
+    private int findSegmentEnd(final int segmentStart, final int positionEnd) {
+        final int nextSectionIndex = sections.countAtOrBefore(segmentStart);
+
+        if (nextSectionIndex < sections.size()) {
+            return Math.min(positionEnd, sections.getInnerPosition(nextSectionIndex));
+        }
+
+        return positionEnd;
+    }
+
+    private int findSegmentStart(final int positionStart, final int segmentEnd) {
+        final int previousSectionIndex = sections.countAtOrBefore(segmentEnd - 1) - 1;
+
+        if (previousSectionIndex >= 0) {
+            return Math.max(positionStart, sections.getInnerPosition(previousSectionIndex));
+        }
+
+        return positionStart;
+    }
+
+    /**
+     * Callback for translated notifications, in the positions of the combined list.
+     */
+    interface UpdateCallback {
+
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count, Object payload);
+    }
+}
@@ -0,0 +1,169 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import java.util.Arrays;
+
+/**
+ * Immutable copy of the position mapping of an {@link EasyHeaderFooterAdapter}. Unlike the
+ * methods of the adapter, the methods of a snapshot can be called from any thread, for example to
+ * translate the positions of an impression tracker in the background.
+ * <p>
+ * The adapter publishes a new snapshot with a higher version after each structural change, like
+ * the insertion of an item or the removal of a header. Changes of the inner adapter are only
+ * seen while the adapter is attached to a RecyclerView or has sections.
+ *
+ * @author Ruben Gees
+ */
+public final class PositionSnapshot {
+
+    private final long version;
+    private final int headerCount;
+    private final int innerItemCount;
+    private final int footerCount;
+    private final int[] sectionPositions;
+
+    PositionSnapshot(final long version, final int headerCount, final int innerItemCount,
+                     final int footerCount, final int[] sectionPositions) {
+        this.version = version;
+        this.headerCount = headerCount;
+        this.innerItemCount = innerItemCount;
+        this.footerCount = footerCount;
+        this.sectionPositions = sectionPositions;
+    }
+
+    /**
+     * Returns the version of this snapshot. Snapshots published later have a higher version.
+     *
+     * @return The version.
+     */
+    @SuppressWarnings("unused")
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the amount of headers.
+     *
+     * @return The amount of headers.
+     */
+    @SuppressWarnings("unused")
+    public int getHeaderCount() {
+        return headerCount;
+    }
+
+    /**
+     * Returns the amount of items of the inner adapter.
+     *
+     * @return The amount of items.
+     */
+    @SuppressWarnings("unused")
+    public int getInnerItemCount() {
+        return innerItemCount;
+    }
+
+    /**
+     * Returns the amount of footers.
+     *
+     * @return The amount of footers.
+     */
+    @SuppressWarnings("unused")
+    public int getFooterCount() {
+        return footerCount;
+    }
+
+    /**
+     * Returns the amount of sections.
+     *
+     * @return The amount of sections.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getSectionCount() {
+        return sectionPositions.length;
+    }
+
+    /**
+     * Returns the amount of all headers, items, sections and footers.
+     *
+     * @return The amount.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getItemCount() {
+        return headerCount + innerItemCount + sectionPositions.length + footerCount;
+    }
+
+    /**
+     * Returns if a header is at the specified position.
+     *
+     * @param position The position.
+     * @return True if a header is at the position.
+     */
+    @SuppressWarnings("unused")
+    public boolean isHeader(final int position) {
+        return position >= 0 && position < headerCount;
+    }
+
+    /**
+     * Returns if a footer is at the specified position.
+     *
+     * @param position The position.
+     * @return True if a footer is at the position.
+     */
+    @SuppressWarnings("unused")
+    public boolean isFooter(final int position) {
+        return position >= getItemCount() - footerCount && position < getItemCount();
+    }
+
+    /**
+     * Returns if a section is at the specified position.
+     *
+     * @param position The position.
+     * @return True if a section is at the position.
+     */
+    @SuppressWarnings("unused")
+    public boolean isSection(final int position) {
+        final int bodyPosition = position - headerCount;
+
+        return bodyPosition >= 0 && Arrays.binarySearch(sectionPositions, bodyPosition) >= 0;
+    }
+
+    /**
+     * Returns the position of the item in the inner adapter, like
+     * {@link EasyHeaderFooterAdapter#getRealPosition(int)} did when this snapshot was published.
+     *
+     * @param position The position.
+     * @return The real position or {@link android.support.v7.widget.RecyclerView#NO_POSITION} if
+     * a section is at the position.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public int getRealPosition(final int position) {
+        final int bodyPosition = position - headerCount;
+
+        if (sectionPositions.length == 0 || bodyPosition < 0) {
+            return bodyPosition;
+        } else if (bodyPosition >= innerItemCount + sectionPositions.length) {
+            return bodyPosition - sectionPositions.length;
+        }
+
+        final int index = Arrays.binarySearch(sectionPositions, bodyPosition);
+
+        // The insertion point is the amount of sections before the position.
+        return index >= 0 ? PositionIndex.NO_POSITION : bodyPosition + index + 1;
+    }
+
+    /**
+     * Returns the positions of the items in the inner adapter for all specified positions. See
+     * {@link #getRealPosition(int)} for details.
+     *
+     * @param positions The positions.
+     * @return The real positions, in the same order.
+     */
+    @SuppressWarnings("unused")
+    public int[] getRealPositions(final int[] positions) {
+        final int[] result = new int[positions.length];
+
+        for (int i = 0; i < positions.length; i++) {
+            result[i] = getRealPosition(positions[i]);
+        }
+
+        return result;
+    }
+}
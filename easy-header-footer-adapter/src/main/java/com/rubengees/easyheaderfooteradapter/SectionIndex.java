@@ -0,0 +1,235 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import java.util.Arrays;
+
+/**
+ * Sorted index of sections, which are interleaved with the items of an adapter. Each section
+ * is shown directly before the item at its inner position. Multiple sections may share the same
+ * inner position and are shown in the order they have been added.
+ * <p>
+ * Positions of the combined list of items and sections are called body positions here. The body
+ * position of the section at index i is its inner position plus i, which is strictly increasing.
+ * This allows to map between both kinds of positions with a binary search.
+ *
+ * @param <T> The type of the values attached to the sections.
+ * @author Ruben Gees
+ */
+final class SectionIndex<T> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(final int index) {
+        checkIndex(index);
+
+        return (T) values[index];
+    }
+
+    int getInnerPosition(final int index) {
+        checkIndex(index);
+
+        return positions[index];
+    }
+
+    int getBodyPosition(final int index) {
+        checkIndex(index);
+
+        return positions[index] + index;
+    }
+
+    /**
+     * Adds a section after all existing sections at the same inner position.
+     *
+     * @param innerPosition The inner position.
+     * @param value         The value of the section.
+     * @return The index of the new section.
+     */
+    int add(final int innerPosition, final T value) {
+        final int index = countAtOrBefore(innerPosition);
+
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        System.arraycopy(positions, index, positions, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+
+        positions[index] = innerPosition;
+        values[index] = value;
+        size++;
+
+        return index;
+    }
+
+    T remove(final int index) {
+        final T result = get(index);
+
+        System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+
+        size--;
+        values[size] = null;
+
+        return result;
+    }
+
+    /**
+     * Returns the amount of sections shown before the item at the specified inner position.
+     *
+     * @param innerPosition The inner position.
+     * @return The amount of sections.
+     */
+    int countAtOrBefore(final int innerPosition) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (positions[middle] <= innerPosition) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    int toBodyPosition(final int innerPosition) {
+        return innerPosition + countAtOrBefore(innerPosition);
+    }
+
+    /**
+     * Returns the index of the last section at or before the specified body position.
+     *
+     * @param bodyPosition The body position.
+     * @return The index or -1 if there is none.
+     */
+    int floorIndex(final int bodyPosition) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (positions[middle] + middle <= bodyPosition) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low - 1;
+    }
+
+    /**
+     * Returns the index of the section at the specified body position.
+     *
+     * @param bodyPosition The body position.
+     * @return The index or -1 if an item is at the position.
+     */
+    int indexAt(final int bodyPosition) {
+        final int index = floorIndex(bodyPosition);
+
+        return index >= 0 && positions[index] + index == bodyPosition ? index : -1;
+    }
+
+    /**
+     * Returns the inner position of the item at the specified body position.
+     *
+     * @param bodyPosition The body position.
+     * @return The inner position or -1 if a section is at the position.
+     */
+    int toInnerPosition(final int bodyPosition) {
+        final int index = floorIndex(bodyPosition);
+
+        if (index >= 0 && positions[index] + index == bodyPosition) {
+            return -1;
+        }
+
+        return bodyPosition - index - 1;
+    }
+
+    /**
+     * Returns if there is a section between the specified inner positions.
+     *
+     * @param fromExclusive The first inner position, exclusive.
+     * @param toInclusive   The last inner position, inclusive.
+     * @return True if there is a section in the range.
+     */
+    boolean hasSectionIn(final int fromExclusive, final int toInclusive) {
+        return countAtOrBefore(toInclusive) > countAtOrBefore(fromExclusive);
+    }
+
+    /**
+     * Returns a copy of the body positions of all sections, which are strictly increasing.
+     *
+     * @return The body positions.
+     */
+    int[] copyBodyPositions() {
+        final int[] result = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            result[i] = positions[i] + i;
+        }
+
+        return result;
+    }
+
+    /**
+     * Updates the sections after items have been inserted. Sections at the inner position stay
+     * before the inserted items.
+     *
+     * @param innerPosition The inner position of the first inserted item.
+     * @param count         The amount of inserted items.
+     */
+    void onInserted(final int innerPosition, final int count) {
+        for (int i = countAtOrBefore(innerPosition); i < size; i++) {
+            positions[i] += count;
+        }
+    }
+
+    /**
+     * Updates the sections after items have been removed. Sections within the removed range are
+     * kept and moved to its start.
+     *
+     * @param innerPosition The inner position of the first removed item.
+     * @param count         The amount of removed items.
+     */
+    void onRemoved(final int innerPosition, final int count) {
+        for (int i = countAtOrBefore(innerPosition); i < size; i++) {
+            positions[i] = Math.max(innerPosition, positions[i] - count);
+        }
+    }
+
+    /**
+     * Moves all sections after the specified inner position to it.
+     *
+     * @param innerPosition The maximum inner position.
+     */
+    void clamp(final int innerPosition) {
+        for (int i = countAtOrBefore(innerPosition); i < size; i++) {
+            positions[i] = innerPosition;
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.rubengees.easyheaderfooteradapter;
+
+/**
+ * Cache for the span group indices of a grid. The state of the computation is remembered before
+ * each position, so that sequential and repeated lookups do not have to start from the beginning
+ * of the list. The cache is invalidated from the first position affected by a change.
+ * <p>
+ * This class does not depend on the Android framework, so it can be benchmarked on the JVM.
+ *
+ * @author Ruben Gees
+ */
+final class SpanGroupIndexCache {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final SpanSizeProvider spanSizeProvider;
+
+    private int[] spanBefore = new int[INITIAL_CAPACITY];
+    private int[] groupBefore = new int[INITIAL_CAPACITY];
+    private int validCount;
+    private int cachedSpanCount;
+
+    SpanGroupIndexCache(final SpanSizeProvider spanSizeProvider) {
+        this.spanSizeProvider = spanSizeProvider;
+    }
+
+    int getSpanGroupIndex(final int position, final int spanCount) {
+        if (spanCount != cachedSpanCount) {
+            cachedSpanCount = spanCount;
+            validCount = 0;
+        }
+
+        ensureCapacity(position + 1);
+
+        if (validCount == 0) {
+            spanBefore[0] = 0;
+            groupBefore[0] = 0;
+            validCount = 1;
+        }
+
+        int span = spanBefore[validCount - 1];
+        int group = groupBefore[validCount - 1];
+
+        for (int i = validCount - 1; i < position; i++) {
+            final int size = spanSizeProvider.getSpanSize(i);
+
+            span += size;
+
+            if (span == spanCount) {
+                span = 0;
+                group++;
+            } else if (span > spanCount) {
+                span = size;
+                group++;
+            }
+
+            spanBefore[i + 1] = span;
+            groupBefore[i + 1] = group;
+        }
+
+        validCount = Math.max(validCount, position + 1);
+
+        if (spanBefore[position] + spanSizeProvider.getSpanSize(position) > spanCount) {
+            return groupBefore[position] + 1;
+        }
+
+        return groupBefore[position];
+    }
+
+    /**
+     * Invalidates all cached values.
+     */
+    void invalidate() {
+        validCount = 0;
+    }
+
+    /**
+     * Invalidates all cached values at or after the specified position.
+     *
+     * @param position The first position which changed.
+     */
+    void invalidateFrom(final int position) {
+        validCount = Math.min(validCount, Math.max(position, 0) + 1);
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (spanBefore.length < capacity) {
+            final int newCapacity = Math.max(capacity, spanBefore.length * 2);
+            final int[] newSpanBefore = new int[newCapacity];
+            final int[] newGroupBefore = new int[newCapacity];
+
+            System.arraycopy(spanBefore, 0, newSpanBefore, 0, validCount);
+            System.arraycopy(groupBefore, 0, newGroupBefore, 0, validCount);
+
+            spanBefore = newSpanBefore;
+            groupBefore = newGroupBefore;
+        }
+    }
+
+    /**
+     * Provider of the span sizes of the positions.
+     */
+    interface SpanSizeProvider {
+
+        int getSpanSize(int position);
+    }
+}
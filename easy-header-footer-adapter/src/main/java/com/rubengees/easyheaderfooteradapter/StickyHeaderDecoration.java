@@ -0,0 +1,220 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.annotation.NonNull;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * An {@link RecyclerView.ItemDecoration} which pins the headers and sections of an
+ * {@link EasyHeaderFooterAdapter} to the top while the list scrolls. The last one which has been
+ * scrolled past is shown and pushed up by the next one.
+ * <p>
+ * The pinned View is drawn from a cached snapshot, which is only rendered again if the View has
+ * been laid out again, if a header or footer has been notified as changed through the adapter or
+ * if {@link #invalidateSnapshot()} has been called. No additional Views are inflated.
+ * <p>
+ * This works with the {@link LinearLayoutManager} and the GridLayoutManager in vertical
+ * orientation. The snapshot is released when the RecyclerView is detached from the window. Call
+ * {@link #release()} if the decoration is removed from a RecyclerView which stays attached.
+ *
+ * @author Ruben Gees
+ */
+public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final EasyHeaderFooterAdapter adapter;
+    private final Canvas snapshotCanvas = new Canvas();
+
+    private final View.OnLayoutChangeListener snapshotLayoutListener =
+            new View.OnLayoutChangeListener() {
+                @Override
+                public void onLayoutChange(final View view, final int left, final int top,
+                                           final int right, final int bottom, final int oldLeft,
+                                           final int oldTop, final int oldRight,
+                                           final int oldBottom) {
+                    isSnapshotDirty = true;
+                }
+            };
+
+    private final View.OnAttachStateChangeListener parentAttachListener =
+            new View.OnAttachStateChangeListener() {
+                @Override
+                public void onViewAttachedToWindow(final View view) {
+                }
+
+                @Override
+                public void onViewDetachedFromWindow(final View view) {
+                    release();
+                }
+            };
+
+    private RecyclerView parent;
+    private View snapshotView;
+    private Bitmap snapshot;
+    private boolean isSnapshotDirty;
+    private int snapshotChangeCount;
+
+    /**
+     * The constructor.
+     *
+     * @param adapter The adapter whose headers and sections should stick to the top.
+     */
+    public StickyHeaderDecoration(@NonNull final EasyHeaderFooterAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onDrawOver(final Canvas canvas, final RecyclerView parent,
+                           final RecyclerView.State state) {
+        if (!(parent.getLayoutManager() instanceof LinearLayoutManager)) {
+            return;
+        }
+
+        final LinearLayoutManager layoutManager = (LinearLayoutManager) parent.getLayoutManager();
+
+        attachTo(parent);
+
+        if (layoutManager.getOrientation() != LinearLayoutManager.VERTICAL) {
+            return;
+        }
+
+        final int firstPosition = layoutManager.findFirstVisibleItemPosition();
+        final int stickyPosition = adapter.findStickyPosition(firstPosition);
+
+        if (stickyPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        final View stickyView = adapter.getDecorationView(parent, stickyPosition);
+        final RecyclerView.ViewHolder stickyHolder =
+                parent.findViewHolderForAdapterPosition(stickyPosition);
+
+        if (stickyView == null || (stickyHolder != null && stickyHolder.itemView.getTop() >= 0)) {
+            return;
+        }
+
+        if (!updateSnapshot(stickyView)) {
+            return;
+        }
+
+        int offset = 0;
+
+        final int nextStickyPosition = adapter.findNextStickyPosition(stickyPosition);
+
+        if (nextStickyPosition != RecyclerView.NO_POSITION) {
+            final RecyclerView.ViewHolder nextStickyHolder =
+                    parent.findViewHolderForAdapterPosition(nextStickyPosition);
+
+            if (nextStickyHolder != null) {
+                // Push the pinned header up while the next one is approaching.
+                offset = Math.min(0, nextStickyHolder.itemView.getTop() - snapshot.getHeight());
+            }
+        }
+
+        canvas.drawBitmap(snapshot, parent.getPaddingLeft(), parent.getPaddingTop() + offset,
+                null);
+    }
+
+    /**
+     * Forces the snapshot of the pinned header or section to be rendered again the next time it
+     * is drawn. Call this after changing the content of a section, or of a header without
+     * notifying the adapter, if the change does not cause a new layout.
+     */
+    @SuppressWarnings("unused")
+    public void invalidateSnapshot() {
+        isSnapshotDirty = true;
+    }
+
+    /**
+     * Releases the snapshot and stops listening to the pinned View. This happens automatically
+     * when the RecyclerView is detached from the window. Call it after removing this decoration
+     * from a RecyclerView which stays attached, as the pinned View would otherwise keep this
+     * decoration alive. The snapshot is rendered again if the decoration is drawn afterwards.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public void release() {
+        if (snapshotView != null) {
+            snapshotView.removeOnLayoutChangeListener(snapshotLayoutListener);
+            snapshotView = null;
+        }
+
+        if (parent != null) {
+            parent.removeOnAttachStateChangeListener(parentAttachListener);
+            parent = null;
+        }
+
+        if (snapshot != null) {
+            snapshotCanvas.setBitmap(null);
+            snapshot.recycle();
+            snapshot = null;
+        }
+    }
+
+    private void attachTo(final RecyclerView parent) {
+        if (this.parent != parent) {
+            if (this.parent != null) {
+                this.parent.removeOnAttachStateChangeListener(parentAttachListener);
+            }
+
+            parent.addOnAttachStateChangeListener(parentAttachListener);
+            this.parent = parent;
+        }
+    }
+
+    private boolean updateSnapshot(final View view) {
+        if (!ViewCompat.isAttachedToWindow(view) && view.isLayoutRequested()
+                && view.getWidth() > 0) {
+            // Nobody else lays out a detached View, so do it here before rendering.
+            view.measure(View.MeasureSpec.makeMeasureSpec(view.getWidth(),
+                    View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+            view.layout(view.getLeft(), view.getTop(), view.getLeft() + view.getMeasuredWidth(),
+                    view.getTop() + view.getMeasuredHeight());
+        }
+
+        final int width = view.getWidth();
+        final int height = view.getHeight();
+
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+
+        final boolean sizeChanged = snapshot == null || snapshot.getWidth() != width
+                || snapshot.getHeight() != height;
+
+        if (!sizeChanged && snapshotView == view && !isSnapshotDirty
+                && snapshotChangeCount == adapter.getDecorationChangeCount()) {
+            return true;
+        }
+
+        if (sizeChanged) {
+            if (snapshot != null) {
+                snapshot.recycle();
+            }
+
+            snapshot = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            snapshotCanvas.setBitmap(snapshot);
+        } else {
+            snapshot.eraseColor(0);
+        }
+
+        view.draw(snapshotCanvas);
+
+        if (snapshotView != view) {
+            if (snapshotView != null) {
+                snapshotView.removeOnLayoutChangeListener(snapshotLayoutListener);
+            }
+
+            view.addOnLayoutChangeListener(snapshotLayoutListener);
+            snapshotView = view;
+        }
+
+        isSnapshotDirty = false;
+        snapshotChangeCount = adapter.getDecorationChangeCount();
+
+        return true;
+    }
+}
@@ -0,0 +1,196 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.v7.util.BatchingListUpdateCallback;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queue for changes of the data of an inner adapter, which are made on other threads. The
+ * operations can be enqueued from any thread without blocking. They are applied to the list and
+ * notified to the inner adapter together in the next animation frame on the main thread, so the
+ * {@link EasyHeaderFooterAdapter} translates them like any other notification and the
+ * RecyclerView sees them before its next layout.
+ * <p>
+ * Positions refer to the list after all previously enqueued operations have been applied. The list
+ * must only be changed through this queue, as long as operations are pending. Create the queue
+ * through {@link EasyHeaderFooterAdapter#createUpdateQueue(List)}. The inner adapter must not be
+ * a {@link CompositeAdapter}, as the queue could not tell which of its adapters shows the list.
+ *
+ * @param <T> The type of the items.
+ * @author Ruben Gees
+ */
+public class UpdateQueue<T> {
+
+    private static final int TYPE_INSERT = 0;
+    private static final int TYPE_REMOVE = 1;
+    private static final int TYPE_CHANGE = 2;
+
+    private static final int POSITION_END = -1;
+
+    private final List<T> items;
+    private final EasyHeaderFooterAdapter adapter;
+
+    private final Queue<Operation<T>> operations = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final BatchingListUpdateCallback updateCallback =
+            new BatchingListUpdateCallback(new AdapterUpdateCallback());
+
+    private final Runnable scheduleDrainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // The RecyclerViews of the adapter may only be accessed on the main thread.
+            adapter.postOnAnimation(drainRunnable);
+        }
+    };
+
+    private final Runnable drainRunnable = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    UpdateQueue(@NonNull final List<T> items, @NonNull final EasyHeaderFooterAdapter adapter) {
+        this.items = items;
+        this.adapter = adapter;
+    }
+
+    /**
+     * Enqueues the insertion of the specified item at the end of the list.
+     *
+     * @param item The item.
+     */
+    @SuppressWarnings("unused")
+    public void add(@NonNull final T item) {
+        enqueue(new Operation<>(TYPE_INSERT, POSITION_END, item));
+    }
+
+    /**
+     * Enqueues the insertion of the specified item at the specified position.
+     *
+     * @param position The position.
+     * @param item     The item.
+     */
+    @SuppressWarnings("unused")
+    public void insert(final int position, @NonNull final T item) {
+        enqueue(new Operation<>(TYPE_INSERT, position, item));
+    }
+
+    /**
+     * Enqueues the removal of the item at the specified position.
+     *
+     * @param position The position.
+     */
+    @SuppressWarnings("unused")
+    public void remove(final int position) {
+        enqueue(new Operation<T>(TYPE_REMOVE, position, null));
+    }
+
+    /**
+     * Enqueues the replacement of the item at the specified position.
+     *
+     * @param position The position.
+     * @param item     The new item.
+     */
+    @SuppressWarnings("unused")
+    public void change(final int position, @NonNull final T item) {
+        enqueue(new Operation<>(TYPE_CHANGE, position, item));
+    }
+
+    private void enqueue(final Operation<T> operation) {
+        operations.offer(operation);
+
+        // Only the first operation after a drain posts a new one.
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            mainHandler.post(scheduleDrainRunnable);
+        }
+    }
+
+    private void drain() {
+        // Reset before polling, so that operations enqueued from now on schedule a new drain.
+        isDrainScheduled.set(false);
+
+        Operation<T> operation;
+
+        try {
+            while ((operation = operations.poll()) != null) {
+                apply(operation);
+            }
+        } finally {
+            // The operations applied before a failure must still be notified, as the list has
+            // already changed. The remaining ones are drained in the next frame.
+            if (!operations.isEmpty() && isDrainScheduled.compareAndSet(false, true)) {
+                mainHandler.post(scheduleDrainRunnable);
+            }
+
+            updateCallback.dispatchLastEvent();
+        }
+    }
+
+    private void apply(final Operation<T> operation) {
+        switch (operation.type) {
+            case TYPE_INSERT:
+                final int position = operation.position == POSITION_END ? items.size()
+                        : operation.position;
+
+                items.add(position, operation.item);
+                updateCallback.onInserted(position, 1);
+                break;
+            case TYPE_REMOVE:
+                items.remove(operation.position);
+                updateCallback.onRemoved(operation.position, 1);
+                break;
+            case TYPE_CHANGE:
+                items.set(operation.position, operation.item);
+                updateCallback.onChanged(operation.position, 1, null);
+                break;
+            default:
+                throw new IllegalStateException("Unknown operation type: " + operation.type);
+        }
+    }
+
+    private static final class Operation<T> {
+
+        final int type;
+        final int position;
+        final T item;
+
+        Operation(final int type, final int position, final T item) {
+            this.type = type;
+            this.position = position;
+            this.item = item;
+        }
+    }
+
+    private class AdapterUpdateCallback implements ListUpdateCallback {
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            adapter.getInnerAdapter().notifyItemRangeInserted(position, count);
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            adapter.getInnerAdapter().notifyItemRangeRemoved(position, count);
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            adapter.getInnerAdapter().notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, final Object payload) {
+            adapter.getInnerAdapter().notifyItemRangeChanged(position, count, payload);
+        }
+    }
+}
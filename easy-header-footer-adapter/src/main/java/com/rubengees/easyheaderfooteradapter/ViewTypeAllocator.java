@@ -0,0 +1,53 @@
+package com.rubengees.easyheaderfooteradapter;
+
+/**
+ * Allocates the view types of headers, footers and sections. Each allocated view type is unique
+ * for this allocator.
+ * <p>
+ * By default, each {@link EasyHeaderFooterAdapter} uses its own allocator, which means that
+ * different adapters use the same view types for different headers and footers. To share a
+ * {@link android.support.v7.widget.RecyclerView.RecycledViewPool} between multiple adapters, pass
+ * the same allocator to all of them. The view types of the inner adapters are not changed, so
+ * their ViewHolders are still shared.
+ *
+ * @author Ruben Gees
+ */
+public class ViewTypeAllocator {
+
+    private final int firstViewType;
+    private int nextViewType;
+
+    /**
+     * The constructor. View types are allocated upwards from {@link Integer#MIN_VALUE}.
+     */
+    public ViewTypeAllocator() {
+        this(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Constructor for allocating view types upwards from the specified one. The inner adapters
+     * must not use any of the allocated view types.
+     *
+     * @param firstViewType The first view type to allocate.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public ViewTypeAllocator(final int firstViewType) {
+        this.firstViewType = firstViewType;
+        this.nextViewType = firstViewType;
+    }
+
+    /**
+     * Returns a view type, which has not been returned before.
+     *
+     * @return The view type.
+     * @throws IllegalStateException if all view types have been allocated.
+     */
+    public synchronized int allocate() {
+        if (nextViewType == Integer.MAX_VALUE) {
+            throw new IllegalStateException("All view types from " + firstViewType
+                    + " have been allocated.");
+        }
+
+        return nextViewType++;
+    }
+}
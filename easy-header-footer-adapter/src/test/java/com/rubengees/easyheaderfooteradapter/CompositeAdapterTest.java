@@ -0,0 +1,208 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link CompositeAdapter}. Robolectric is only needed for the observable of the
+ * RecyclerView.Adapter, the adapter itself does not touch any Views.
+ *
+ * @author Ruben Gees
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class CompositeAdapterTest {
+
+    private TestAdapter first;
+    private TestAdapter empty;
+    private TestAdapter second;
+    private CompositeAdapter adapter;
+    private RecordingObserver observer;
+
+    @Before
+    public void setUp() {
+        first = new TestAdapter(3);
+        empty = new TestAdapter(0);
+        second = new TestAdapter(2);
+        adapter = new CompositeAdapter(Arrays.asList(first, empty, second));
+        observer = new RecordingObserver();
+
+        adapter.registerAdapterDataObserver(observer);
+    }
+
+    @Test
+    public void concatenatesItemCounts() {
+        assertEquals(5, adapter.getItemCount());
+    }
+
+    @Test
+    public void mapsPositionsToAdaptersSkippingEmptyOnes() {
+        assertEquals(0, adapter.getAdapterIndex(0));
+        assertEquals(0, adapter.getAdapterIndex(2));
+        assertEquals(2, adapter.getAdapterIndex(3));
+        assertEquals(1, adapter.getLocalPosition(4));
+    }
+
+    @Test
+    public void offsetsNotificationsOfChildren() {
+        second.items.add(0, 100);
+        second.notifyItemInserted(0);
+
+        assertEquals("inserted 3 1", observer.take());
+        assertEquals(6, adapter.getItemCount());
+
+        first.items.remove(1);
+        first.notifyItemRemoved(1);
+
+        assertEquals("removed 1 1", observer.take());
+        assertEquals(2, adapter.getAdapterIndex(2));
+
+        second.notifyItemChanged(1, "payload");
+
+        assertEquals("changed 3 1 payload", observer.take());
+
+        empty.items.add(7);
+        empty.notifyItemInserted(0);
+
+        assertEquals("inserted 2 1", observer.take());
+        assertEquals(1, adapter.getAdapterIndex(2));
+    }
+
+    @Test
+    public void splitsMovedRangesIntoSingleMoves() {
+        second.notifyItemMoved(1, 0);
+
+        assertEquals("moved 4 3 1", observer.take());
+    }
+
+    @Test
+    public void requeriesCountsWhenObservedAgain() {
+        adapter.unregisterAdapterDataObserver(observer);
+
+        first.items.add(10);
+
+        adapter.registerAdapterDataObserver(observer);
+
+        assertEquals(6, adapter.getItemCount());
+        assertEquals("", observer.take());
+    }
+
+    @Test
+    public void mapsViewTypesOfChildrenToDistinctTypes() {
+        final TestAdapter typed = new TestAdapter(4, 2, false);
+        final CompositeAdapter composite = new CompositeAdapter(Arrays.asList(first, typed));
+        final Set<Integer> viewTypes = new HashSet<>();
+
+        for (int i = 0; i < composite.getItemCount(); i++) {
+            viewTypes.add(composite.getItemViewType(i));
+        }
+
+        // The first adapter has one view type, the second one two.
+        assertEquals(3, viewTypes.size());
+    }
+
+    @Test
+    public void mapsViewTypesIndependentlyOfQueryOrder() {
+        final CompositeAdapter other = new CompositeAdapter(Arrays.asList(first, empty, second));
+        final int secondViewType = other.getItemViewType(3);
+
+        assertEquals(adapter.getItemViewType(0), other.getItemViewType(0));
+        assertEquals(adapter.getItemViewType(3), secondViewType);
+        assertNotEquals(secondViewType, other.getItemViewType(0));
+    }
+
+    @Test
+    public void keepsNegativeViewTypesApart() {
+        final EasyHeaderFooterAdapter decorated = new EasyHeaderFooterAdapter(new TestAdapter(1));
+
+        decorated.addHeader(new View(RuntimeEnvironment.application));
+        decorated.addFooter(new View(RuntimeEnvironment.application));
+
+        final CompositeAdapter composite = new CompositeAdapter(Arrays.asList(first, decorated));
+        final Set<Integer> viewTypes = new HashSet<>();
+
+        for (int i = 0; i < composite.getItemCount(); i++) {
+            viewTypes.add(composite.getItemViewType(i));
+        }
+
+        assertEquals(4, viewTypes.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsViewTypesDifferingOnlyInHighestBits() {
+        final TestAdapter typed = new TestAdapter(2) {
+            @Override
+            public int getItemViewType(final int position) {
+                return position << 30;
+            }
+        };
+        final CompositeAdapter composite = new CompositeAdapter(Arrays.asList(first, typed));
+
+        composite.getItemViewType(3);
+        composite.getItemViewType(4);
+    }
+
+    @Test
+    public void createsHoldersThroughOwningAdapter() {
+        final FrameLayout parent = new FrameLayout(RuntimeEnvironment.application);
+        final RecyclerView.ViewHolder holder =
+                adapter.onCreateViewHolder(parent, adapter.getItemViewType(3));
+
+        assertEquals(0, first.createCount);
+        assertEquals(1, second.createCount);
+        assertTrue(holder instanceof TestAdapter.ViewHolder);
+    }
+
+    @Test
+    public void hasStableIdsOnlyIfAllChildrenHave() {
+        assertFalse(adapter.hasStableIds());
+
+        final TestAdapter stable = new TestAdapter(2, 1, true);
+        final CompositeAdapter composite = new CompositeAdapter(Arrays.asList(stable, stable));
+
+        assertTrue(composite.hasStableIds());
+    }
+
+    @Test
+    public void idsAreUniqueAcrossChildren() {
+        // Both adapters use the ids 0 and 1.
+        final TestAdapter stable = new TestAdapter(2, 1, true);
+        final TestAdapter otherStable = new TestAdapter(2, 1, true);
+        final CompositeAdapter composite =
+                new CompositeAdapter(Arrays.asList(stable, otherStable));
+        final Set<Long> ids = new HashSet<>();
+
+        for (int i = 0; i < composite.getItemCount(); i++) {
+            ids.add(composite.getItemId(i));
+
+            // Negative ids are used for the headers and footers.
+            assertTrue(composite.getItemId(i) >= 0);
+        }
+
+        assertEquals(4, ids.size());
+        assertEquals(composite.getItemId(0), composite.getItemId(0));
+    }
+
+    @Test
+    public void returnsAdapters() {
+        assertSame(second, adapter.getAdapters().get(2));
+    }
+}
@@ -0,0 +1,901 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.app.Activity;
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link EasyHeaderFooterAdapter} on the level of the adapter. ViewHolders are
+ * created and bound directly, the LayoutManagers are covered by the {@link ScrollBudgetTest}.
+ *
+ * @author Ruben Gees
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25)
+public class EasyHeaderFooterAdapterTest {
+
+    private Context context;
+    private TestAdapter innerAdapter;
+    private EasyHeaderFooterAdapter adapter;
+    private RecyclerView recyclerView;
+    private RecordingObserver observer;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.application;
+        innerAdapter = new TestAdapter(10);
+        adapter = new EasyHeaderFooterAdapter(innerAdapter);
+        recyclerView = new RecyclerView(context);
+        observer = new RecordingObserver();
+
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        recyclerView.setAdapter(adapter);
+        adapter.registerAdapterDataObserver(observer);
+    }
+
+    @Test
+    public void mapsPositionsOfHeadersSectionsAndFooters() {
+        adapter.addHeader(new View(context));
+        adapter.addFooter(new View(context));
+        adapter.addSection(5, new View(context));
+
+        assertEquals(13, adapter.getItemCount());
+        assertTrue(adapter.isHeader(0));
+        assertTrue(adapter.isSection(6));
+        assertTrue(adapter.isFooter(12));
+        assertEquals(4, adapter.getRealPosition(5));
+        assertEquals(RecyclerView.NO_POSITION, adapter.getRealPosition(6));
+        assertEquals(5, adapter.getRealPosition(7));
+        assertEquals(9, adapter.getRealPosition(11));
+    }
+
+    @Test
+    public void notifiesChangesOfDecorations() {
+        adapter.addHeader(new View(context));
+        adapter.addHeader(0, new View(context));
+        adapter.addFooter(new View(context));
+        adapter.addSection(2, new View(context));
+        adapter.removeHeader(1);
+
+        assertEquals("inserted 0 1, inserted 0 1, inserted 12 1, inserted 4 1, removed 1 1",
+                observer.take());
+    }
+
+    @Test
+    public void translatesNotificationsOfInnerAdapter() {
+        adapter.addHeader(new View(context));
+        adapter.addSection(2, new View(context));
+        observer.take();
+
+        innerAdapter.items.add(0, 100);
+        innerAdapter.notifyItemInserted(0);
+
+        innerAdapter.items.remove(5);
+        innerAdapter.notifyItemRemoved(5);
+
+        innerAdapter.notifyItemChanged(1, "payload");
+
+        assertEquals("inserted 1 1, removed 7 1, changed 2 1 payload", observer.take());
+        assertEquals(3, adapter.getSectionPosition(0));
+    }
+
+    @Test
+    public void dispatchesBatchedNotificationsRightAwayWhileDetached() {
+        adapter.setBatchingEnabled(true);
+
+        innerAdapter.items.add(0, 100);
+        innerAdapter.notifyItemInserted(0);
+
+        assertEquals("inserted 0 1", observer.take());
+    }
+
+    @Test
+    public void defersBatchedNotificationsWhileIdle() {
+        showRecyclerView();
+        adapter.setBatchingEnabled(true);
+
+        innerAdapter.items.add(0, 100);
+        innerAdapter.notifyItemInserted(0);
+
+        assertEquals("", observer.take());
+
+        adapter.flushPendingUpdates();
+
+        assertEquals("inserted 0 1", observer.take());
+    }
+
+    @Test
+    public void dispatchesBatchedNotificationsRightAwayWhileScrolling() {
+        showRecyclerView();
+        adapter.setBatchingEnabled(true);
+        recyclerView.smoothScrollBy(0, 100);
+
+        innerAdapter.items.add(0, 100);
+        innerAdapter.notifyItemInserted(0);
+
+        assertEquals("inserted 0 1", observer.take());
+    }
+
+    @Test
+    public void dispatchesBatchedNotificationsOnceScrollStarts() {
+        showRecyclerView();
+        adapter.setBatchingEnabled(true);
+
+        innerAdapter.items.add(0, 100);
+        innerAdapter.notifyItemInserted(0);
+        recyclerView.smoothScrollBy(0, 100);
+
+        assertEquals("inserted 0 1", observer.take());
+    }
+
+    @Test
+    public void dispatchesBatchedNotificationsOnTouch() {
+        showRecyclerView();
+        adapter.setBatchingEnabled(true);
+
+        innerAdapter.items.add(0, 100);
+        innerAdapter.notifyItemInserted(0);
+        recyclerView.onInterceptTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0, 0,
+                0));
+
+        assertEquals("inserted 0 1", observer.take());
+    }
+
+    @Test
+    public void replacesSingleHeader() {
+        final View first = new View(context);
+        final View second = new View(context);
+
+        adapter.setHeader(first);
+        adapter.setHeader(second);
+
+        assertSame(second, adapter.getHeader());
+        assertEquals(1, adapter.getHeaderCount());
+
+        adapter.setHeader(null);
+
+        assertEquals(0, adapter.getHeaderCount());
+        assertEquals("inserted 0 1, changed 0 1, removed 0 1", observer.take());
+    }
+
+    @Test
+    public void sharesContainerViewTypeByDefault() {
+        adapter.addHeader(new View(context));
+        adapter.addHeader(new View(context));
+
+        assertEquals(Integer.MIN_VALUE, adapter.getItemViewType(0));
+        assertEquals(Integer.MIN_VALUE, adapter.getItemViewType(1));
+        assertEquals(0, adapter.getItemViewType(2));
+    }
+
+    @Test
+    public void allocatesDedicatedViewTypes() {
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.addHeader(new View(context));
+        adapter.addHeader(new View(context));
+
+        assertEquals(Integer.MIN_VALUE + 2, adapter.getItemViewType(0));
+        assertEquals(Integer.MIN_VALUE + 3, adapter.getItemViewType(1));
+    }
+
+    @Test
+    public void bindsHeaderIntoContainer() {
+        final View header = new View(context);
+
+        adapter.addHeader(header);
+
+        final RecyclerView.ViewHolder holder = createAndBind(0);
+
+        assertSame(holder.itemView, header.getParent());
+    }
+
+    @Test
+    public void wrapsContentOfHeaderWithoutLayoutParams() {
+        adapter.addHeader(new TextView(context));
+
+        final ViewGroup.LayoutParams layoutParams = createAndBind(0).itemView.getLayoutParams();
+
+        assertEquals(ViewGroup.LayoutParams.MATCH_PARENT, layoutParams.width);
+        assertEquals(ViewGroup.LayoutParams.WRAP_CONTENT, layoutParams.height);
+    }
+
+    @Test
+    public void copiesLayoutParamsOfHeaderToContainer() {
+        final View header = new View(context);
+
+        header.setLayoutParams(new ViewGroup.LayoutParams(100, 200));
+        adapter.addHeader(header);
+
+        final ViewGroup.LayoutParams layoutParams = createAndBind(0).itemView.getLayoutParams();
+
+        assertEquals(100, layoutParams.width);
+        assertEquals(200, layoutParams.height);
+    }
+
+    @Test
+    public void wrapsHeaderDirectlyWithDedicatedViewTypes() {
+        final View header = new View(context);
+
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.addHeader(header);
+
+        assertSame(header, createAndBind(0).itemView);
+    }
+
+    @Test
+    public void changesDedicatedHeaderInPlace() {
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.addHeader(new View(context));
+        observer.take();
+
+        adapter.notifyHeaderChanged(0, null);
+
+        assertEquals("changed 0 1 " + EasyHeaderFooterAdapter.PAYLOAD_REBIND, observer.take());
+    }
+
+    @Test
+    public void usesContainerForSecondHolderOfDedicatedHeader() {
+        final View header = new View(context);
+
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.addHeader(header);
+
+        final RecyclerView.ViewHolder first = createAndBind(0);
+        final RecyclerView.ViewHolder second = createAndBind(0);
+
+        assertSame(header, first.itemView);
+        assertEquals(0, ((ViewGroup) second.itemView).getChildCount());
+
+        adapter.onViewRecycled(first);
+
+        assertSame(second.itemView, header.getParent());
+    }
+
+    @Test
+    public void addsRemovedDedicatedHeaderAgain() {
+        final View header = new View(context);
+
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.addHeader(header);
+        createAndBind(0);
+
+        adapter.removeHeader(0);
+        adapter.addHeader(header);
+
+        assertSame(header, createAndBind(0).itemView);
+
+        adapter.setHeader(null);
+        adapter.setHeader(header);
+
+        assertSame(header, createAndBind(0).itemView);
+    }
+
+    @Test
+    public void addsDedicatedHeaderAgainWhileItIsAnimatedOut() {
+        final View header = new View(context);
+
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.addHeader(header);
+
+        final RecyclerView.ViewHolder removed = createAndBind(0);
+
+        // The RecyclerView keeps the View of a removed item until it is animated out.
+        recyclerView.addView(header);
+        adapter.removeHeader(0);
+        adapter.addHeader(header);
+
+        final RecyclerView.ViewHolder added = createAndBind(0);
+
+        assertNotSame(header, added.itemView);
+        assertSame(recyclerView, header.getParent());
+
+        recyclerView.removeView(header);
+        adapter.onViewRecycled(removed);
+
+        assertSame(added.itemView, header.getParent());
+    }
+
+    @Test
+    public void dropsPooledHoldersOfReplacedDedicatedHeader() {
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.setHeader(new View(context));
+
+        final RecyclerView.ViewHolder holder = createAndBind(0);
+        final int viewType = holder.getItemViewType();
+
+        adapter.onViewRecycled(holder);
+        recyclerView.getRecycledViewPool().putRecycledView(holder);
+        adapter.setHeader(new View(context));
+
+        assertNull(recyclerView.getRecycledViewPool().getRecycledView(viewType));
+    }
+
+    @Test
+    public void createsHolderForDedicatedHeaderAgainAfterRecycling() {
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.addHeader(new View(context));
+
+        adapter.onViewRecycled(createAndBind(0));
+
+        assertSame(adapter.getHeader(0), createAndBind(0).itemView);
+    }
+
+    @Test
+    public void createsHeaderOfFactoryWhenShown() {
+        adapter.addHeader(new EasyHeaderFooterAdapter.ViewFactory() {
+            @NonNull
+            @Override
+            public View createView(@NonNull final ViewGroup parent) {
+                return new TextView(parent.getContext());
+            }
+        });
+
+        assertNull(adapter.getHeader(0));
+
+        createAndBind(0);
+
+        assertTrue(adapter.getHeader(0) instanceof TextView);
+    }
+
+    @Test
+    public void collapsesHiddenHeader() {
+        adapter.addHeader(new View(context));
+        adapter.setHeaderVisible(0, false);
+
+        final RecyclerView.ViewHolder holder = createAndBind(0);
+
+        assertEquals(View.GONE, holder.itemView.getVisibility());
+        assertFalse(adapter.isHeaderVisible(0));
+
+        adapter.setHeaderVisible(0, true);
+        adapter.bindViewHolder(holder, 0);
+
+        assertEquals(View.VISIBLE, holder.itemView.getVisibility());
+    }
+
+    @Test
+    public void deliversPayloadsOfHeaders() {
+        final List<Object> received = new ArrayList<>();
+
+        adapter.addHeader(new View(context));
+        adapter.setPayloadListener(new EasyHeaderFooterAdapter.PayloadListener() {
+            @Override
+            public void onBindPayloads(@NonNull final View view, final int position,
+                                       @NonNull final List<Object> payloads) {
+                received.addAll(payloads);
+            }
+        });
+
+        final RecyclerView.ViewHolder holder = createAndBind(0);
+
+        adapter.notifyHeaderChanged(0, "payload");
+        adapter.onBindViewHolder(holder, 0, Collections.<Object>singletonList("payload"));
+
+        assertEquals(Collections.<Object>singletonList("payload"), received);
+    }
+
+    @Test
+    public void callsPayloadListenerOnFullBindAfterPayloadWhileNotShown() {
+        final List<List<Object>> received = new ArrayList<>();
+
+        adapter.addHeader(new View(context));
+        adapter.setPayloadListener(new EasyHeaderFooterAdapter.PayloadListener() {
+            @Override
+            public void onBindPayloads(@NonNull final View view, final int position,
+                                       @NonNull final List<Object> payloads) {
+                received.add(payloads);
+            }
+        });
+
+        // The header is not bound, so the RecyclerView drops the payload.
+        adapter.notifyHeaderChanged(0, "payload");
+        createAndBind(0);
+
+        assertEquals(Collections.singletonList(Collections.emptyList()), received);
+    }
+
+    @Test
+    public void bindsItemsThroughInnerAdapter() {
+        adapter.addHeader(new View(context));
+
+        final RecyclerView.ViewHolder holder = createAndBind(3);
+
+        assertTrue(holder instanceof TestAdapter.ViewHolder);
+        assertEquals(2, ((TestAdapter.ViewHolder) holder).value);
+        assertEquals(1, innerAdapter.createCount);
+    }
+
+    @Test
+    public void bindsWithoutPayloadsWithoutPassingNull() {
+        final List<List<Object>> receivedPayloads = new ArrayList<>();
+        final EasyHeaderFooterAdapter subclass = new EasyHeaderFooterAdapter(innerAdapter) {
+            @Override
+            public void onBindViewHolder(final RecyclerView.ViewHolder holder, final int position,
+                                         final List<Object> payloads) {
+                receivedPayloads.add(payloads);
+
+                super.onBindViewHolder(holder, position, payloads);
+            }
+        };
+
+        final RecyclerView.ViewHolder holder =
+                subclass.createViewHolder(recyclerView, subclass.getItemViewType(0));
+
+        subclass.onBindViewHolder(holder, 0);
+
+        assertFalse(receivedPayloads.contains(null));
+        assertEquals(1, innerAdapter.bindCount);
+        assertNull(innerAdapter.lastPayloads);
+
+        subclass.bindViewHolder(holder, 0);
+
+        assertEquals(1, receivedPayloads.size());
+        assertEquals(Collections.emptyList(), receivedPayloads.get(0));
+        assertEquals(Collections.emptyList(), innerAdapter.lastPayloads);
+    }
+
+    @Test
+    public void assignsStableIdsToDecorations() {
+        final TestAdapter stableAdapter = new TestAdapter(3, 1, true);
+        final EasyHeaderFooterAdapter stableHeaderFooterAdapter =
+                new EasyHeaderFooterAdapter(stableAdapter);
+
+        stableHeaderFooterAdapter.addHeader(new View(context));
+        stableHeaderFooterAdapter.addFooter(new View(context));
+
+        assertTrue(stableHeaderFooterAdapter.hasStableIds());
+        assertEquals(0, stableHeaderFooterAdapter.getItemId(1));
+        assertEquals(Long.MIN_VALUE, stableHeaderFooterAdapter.getItemId(0));
+        assertEquals(Long.MIN_VALUE + 1, stableHeaderFooterAdapter.getItemId(4));
+    }
+
+    @Test
+    public void letsDecorationsSpanFullWidthInGrid() {
+        final GridLayoutManager layoutManager = new GridLayoutManager(context, 3);
+        final RecyclerView gridRecyclerView = new RecyclerView(context);
+
+        // Headers added as a View can only be shown by a single RecyclerView.
+        recyclerView.setAdapter(null);
+        adapter.addHeader(new View(context));
+        gridRecyclerView.setLayoutManager(layoutManager);
+        gridRecyclerView.setAdapter(adapter);
+
+        assertEquals(3, layoutManager.getSpanSizeLookup().getSpanSize(0));
+        assertEquals(1, layoutManager.getSpanSizeLookup().getSpanSize(1));
+        assertEquals(1, layoutManager.getSpanSizeLookup().getSpanGroupIndex(1, 3));
+        assertEquals(2, layoutManager.getSpanSizeLookup().getSpanGroupIndex(4, 3));
+    }
+
+    @Test
+    public void keepsSpanGroupIndicesBeforeChangeInGrid() {
+        final GridLayoutManager layoutManager = new GridLayoutManager(context, 3);
+        final RecyclerView gridRecyclerView = new RecyclerView(context);
+        final int[] lookups = new int[1];
+        final GridLayoutManager.SpanSizeLookup innerLookup =
+                new GridLayoutManager.SpanSizeLookup() {
+                    @Override
+                    public int getSpanSize(final int position) {
+                        lookups[0]++;
+
+                        return 1;
+                    }
+                };
+
+        innerLookup.setSpanIndexCacheEnabled(true);
+        layoutManager.setSpanSizeLookup(innerLookup);
+        gridRecyclerView.setLayoutManager(layoutManager);
+        gridRecyclerView.setAdapter(adapter);
+
+        final GridLayoutManager.SpanSizeLookup lookup = layoutManager.getSpanSizeLookup();
+
+        layOut(gridRecyclerView);
+
+        assertEquals(2, lookup.getSpanGroupIndex(8, 3));
+
+        // The GridLayoutManager invalidates the cache during the layout after every change.
+        innerAdapter.items.add(100);
+        innerAdapter.notifyItemInserted(10);
+        layOut(gridRecyclerView);
+        lookups[0] = 0;
+
+        assertEquals(2, lookup.getSpanGroupIndex(8, 3));
+        assertEquals(1, lookups[0]);
+    }
+
+    @Test
+    public void resetsSpanGroupIndicesWhenInvalidatedExplicitly() {
+        final GridLayoutManager layoutManager = new GridLayoutManager(context, 3);
+        final RecyclerView gridRecyclerView = new RecyclerView(context);
+        final int[] spanSize = {1};
+        final GridLayoutManager.SpanSizeLookup innerLookup =
+                new GridLayoutManager.SpanSizeLookup() {
+                    @Override
+                    public int getSpanSize(final int position) {
+                        return spanSize[0];
+                    }
+                };
+
+        innerLookup.setSpanIndexCacheEnabled(true);
+        layoutManager.setSpanSizeLookup(innerLookup);
+        gridRecyclerView.setLayoutManager(layoutManager);
+        gridRecyclerView.setAdapter(adapter);
+
+        final GridLayoutManager.SpanSizeLookup lookup = layoutManager.getSpanSizeLookup();
+
+        assertEquals(2, lookup.getSpanGroupIndex(8, 3));
+
+        spanSize[0] = 3;
+        lookup.invalidateSpanIndexCache();
+
+        assertEquals(8, lookup.getSpanGroupIndex(8, 3));
+    }
+
+    @Test
+    public void cachesSpanIndicesOnlyIfWrappedLookupDoes() {
+        final GridLayoutManager layoutManager = new GridLayoutManager(context, 3);
+        final RecyclerView gridRecyclerView = new RecyclerView(context);
+
+        gridRecyclerView.setLayoutManager(layoutManager);
+        gridRecyclerView.setAdapter(adapter);
+
+        assertTrue(layoutManager.getSpanSizeLookup().isSpanIndexCacheEnabled());
+
+        final GridLayoutManager otherLayoutManager = new GridLayoutManager(context, 3);
+        final RecyclerView otherRecyclerView = new RecyclerView(context);
+
+        otherLayoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(final int position) {
+                return 1;
+            }
+        });
+        otherRecyclerView.setLayoutManager(otherLayoutManager);
+        otherRecyclerView.setAdapter(new EasyHeaderFooterAdapter(new TestAdapter(10)));
+
+        assertFalse(otherLayoutManager.getSpanSizeLookup().isSpanIndexCacheEnabled());
+    }
+
+    @Test
+    public void letsContainersSpanFullWidthInStaggeredGrid() {
+        final RecyclerView staggeredRecyclerView = new RecyclerView(context);
+
+        recyclerView.setAdapter(null);
+        staggeredRecyclerView.setLayoutManager(new StaggeredGridLayoutManager(2,
+                StaggeredGridLayoutManager.VERTICAL));
+        staggeredRecyclerView.setAdapter(adapter);
+        adapter.addHeader(new View(context));
+
+        final RecyclerView.ViewHolder holder =
+                adapter.createViewHolder(staggeredRecyclerView, adapter.getItemViewType(0));
+
+        adapter.bindViewHolder(holder, 0);
+
+        assertTrue(((StaggeredGridLayoutManager.LayoutParams) holder.itemView.getLayoutParams())
+                .isFullSpan());
+    }
+
+    @Test
+    public void letsDedicatedHeadersSpanFullWidthInStaggeredGrid() {
+        final RecyclerView staggeredRecyclerView = new RecyclerView(context);
+        final View header = new View(context);
+
+        header.setLayoutParams(new ViewGroup.LayoutParams(100, 200));
+        recyclerView.setAdapter(null);
+        staggeredRecyclerView.setLayoutManager(new StaggeredGridLayoutManager(2,
+                StaggeredGridLayoutManager.VERTICAL));
+        staggeredRecyclerView.setAdapter(adapter);
+        adapter.setDedicatedViewTypesEnabled(true);
+        adapter.addHeader(header);
+
+        final RecyclerView.ViewHolder holder =
+                adapter.createViewHolder(staggeredRecyclerView, adapter.getItemViewType(0));
+
+        adapter.bindViewHolder(holder, 0);
+
+        final StaggeredGridLayoutManager.LayoutParams layoutParams =
+                (StaggeredGridLayoutManager.LayoutParams) holder.itemView.getLayoutParams();
+
+        assertTrue(layoutParams.isFullSpan());
+        assertEquals(100, layoutParams.width);
+        assertEquals(200, layoutParams.height);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsSecondRecyclerViewWhileHeaderIsView() {
+        final RecyclerView otherRecyclerView = new RecyclerView(context);
+
+        adapter.addHeader(new View(context));
+        otherRecyclerView.setLayoutManager(new LinearLayoutManager(context));
+        otherRecyclerView.setAdapter(adapter);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsHeaderViewWhileShownInTwoRecyclerViews() {
+        final RecyclerView otherRecyclerView = new RecyclerView(context);
+
+        otherRecyclerView.setLayoutManager(new LinearLayoutManager(context));
+        otherRecyclerView.setAdapter(adapter);
+        adapter.addHeader(new View(context));
+    }
+
+    @Test
+    public void showsHeaderOfFactoryInTwoRecyclerViews() {
+        final RecyclerView otherRecyclerView = new RecyclerView(context);
+
+        adapter.addHeader(new EasyHeaderFooterAdapter.ViewFactory() {
+            @NonNull
+            @Override
+            public View createView(@NonNull final ViewGroup parent) {
+                return new TextView(parent.getContext());
+            }
+        });
+        otherRecyclerView.setLayoutManager(new LinearLayoutManager(context));
+        otherRecyclerView.setAdapter(adapter);
+
+        final RecyclerView.ViewHolder holder = createAndBind(0);
+        final RecyclerView.ViewHolder otherHolder =
+                adapter.createViewHolder(otherRecyclerView, adapter.getItemViewType(0));
+
+        adapter.bindViewHolder(otherHolder, 0);
+
+        final View header = ((ViewGroup) holder.itemView).getChildAt(0);
+        final View otherHeader = ((ViewGroup) otherHolder.itemView).getChildAt(0);
+
+        assertTrue(header instanceof TextView);
+        assertTrue(otherHeader instanceof TextView);
+        assertNotSame(header, otherHeader);
+    }
+
+    @Test
+    public void observesInnerAdapterOnlyWhileObserved() {
+        final TestAdapter otherInnerAdapter = new TestAdapter(1);
+        final EasyHeaderFooterAdapter otherAdapter =
+                new EasyHeaderFooterAdapter(otherInnerAdapter);
+
+        assertFalse(otherInnerAdapter.hasObservers());
+
+        otherAdapter.registerAdapterDataObserver(observer);
+
+        assertTrue(otherInnerAdapter.hasObservers());
+
+        otherAdapter.unregisterAdapterDataObserver(observer);
+
+        assertFalse(otherInnerAdapter.hasObservers());
+    }
+
+    @Test
+    public void movesSectionsAlongWhileDetached() {
+        adapter.addSection(2, new View(context));
+        recyclerView.setAdapter(null);
+        adapter.unregisterAdapterDataObserver(observer);
+
+        for (int i = 0; i < 10; i++) {
+            innerAdapter.items.add(0, 100 + i);
+        }
+
+        innerAdapter.notifyItemRangeInserted(0, 10);
+        recyclerView.setAdapter(adapter);
+
+        assertEquals(12, adapter.getSectionPosition(0));
+    }
+
+    @Test
+    public void doesNotObserveInnerAdapterForMetrics() {
+        final TestAdapter otherInnerAdapter = new TestAdapter(1);
+        final EasyHeaderFooterAdapter otherAdapter =
+                new EasyHeaderFooterAdapter(otherInnerAdapter);
+
+        otherAdapter.setMetricsListener(new AdapterMetrics());
+
+        assertFalse(otherInnerAdapter.hasObservers());
+    }
+
+    @Test
+    public void appliesChangesOfUpdateQueue() {
+        final UpdateQueue<Integer> queue = adapter.createUpdateQueue(innerAdapter.items);
+
+        adapter.addHeader(new View(context));
+        observer.take();
+        queue.insert(0, 100);
+
+        assertEquals(100, (int) innerAdapter.items.get(0));
+        assertEquals("inserted 1 1", observer.take());
+    }
+
+    @Test
+    public void dispatchesChangesOfUpdateQueueAppliedBeforeFailure() {
+        final UpdateQueue<Integer> queue = adapter.createUpdateQueue(innerAdapter.items);
+
+        ShadowLooper.pauseMainLooper();
+        queue.insert(0, 100);
+        queue.remove(50);
+        queue.add(7);
+
+        try {
+            ShadowLooper.unPauseMainLooper();
+            fail();
+        } catch (final IndexOutOfBoundsException ignored) {
+        }
+
+        assertEquals(12, innerAdapter.items.size());
+        assertEquals("inserted 0 1, inserted 11 1", observer.take());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUpdateQueueForMultipleAdapters() {
+        final EasyHeaderFooterAdapter composite = new EasyHeaderFooterAdapter(
+                Arrays.asList(new TestAdapter(1), new TestAdapter(1)));
+
+        composite.createUpdateQueue(new ArrayList<Integer>());
+    }
+
+    @Test
+    public void publishesPositionSnapshots() {
+        final long version = adapter.getPositionSnapshot().getVersion();
+
+        adapter.addHeader(new View(context));
+        adapter.addSection(0, new View(context));
+
+        final PositionSnapshot snapshot = adapter.getPositionSnapshot();
+
+        assertTrue(snapshot.getVersion() > version);
+        assertEquals(adapter.getItemCount(), snapshot.getItemCount());
+        assertTrue(snapshot.isSection(1));
+        assertEquals(0, snapshot.getRealPosition(2));
+    }
+
+    @Test
+    public void countsCreationsAndBinds() {
+        final AdapterMetrics metrics = new AdapterMetrics();
+
+        adapter.setMetricsListener(metrics);
+        adapter.addHeader(new View(context));
+
+        createAndBind(0);
+        createAndBind(1);
+
+        assertEquals(1, metrics.getCreateCount(MetricsListener.KIND_HEADER));
+        assertEquals(1, metrics.getBindCount(MetricsListener.KIND_ITEM));
+        assertEquals(2, metrics.getTotalBindCount());
+        assertEquals(1, metrics.getItemRangeNotificationCount());
+    }
+
+    @Test
+    public void requestsNextPageOnceLoadMoreFooterComesClose() {
+        final LoadMoreFooter loadMoreFooter = new LoadMoreFooter(new View(context),
+                new LoadMoreFooter.StateBinder() {
+                    @Override
+                    public void bind(@NonNull final View view, final int state) {
+                    }
+                }, new LoadMoreFooter.Callback() {
+                    @Override
+                    public void onLoadMore() {
+                    }
+                });
+
+        loadMoreFooter.setPrefetchDistance(2);
+        adapter.setLoadMoreFooter(loadMoreFooter);
+
+        createAndBind(0);
+
+        assertEquals(LoadMoreFooter.STATE_IDLE, loadMoreFooter.getState());
+
+        createAndBind(8);
+
+        assertEquals(LoadMoreFooter.STATE_LOADING, loadMoreFooter.getState());
+    }
+
+    @Test
+    public void requestsNextPageAgainIfFooterIsStillCloseAfterLoading() {
+        final int[] loads = new int[1];
+        final LoadMoreFooter loadMoreFooter = new LoadMoreFooter(new View(context),
+                new LoadMoreFooter.StateBinder() {
+                    @Override
+                    public void bind(@NonNull final View view, final int state) {
+                    }
+                }, new LoadMoreFooter.Callback() {
+                    @Override
+                    public void onLoadMore() {
+                        loads[0]++;
+                    }
+                });
+
+        loadMoreFooter.setPrefetchDistance(2);
+        adapter.setLoadMoreFooter(loadMoreFooter);
+
+        createAndBind(10);
+
+        assertEquals(1, loads[0]);
+
+        // A short page, whose item is bound while the footer is still loading.
+        innerAdapter.items.add(100);
+        innerAdapter.notifyItemInserted(10);
+        createAndBind(10);
+        loadMoreFooter.notifyLoadingFinished();
+
+        assertEquals(2, loads[0]);
+        assertEquals(LoadMoreFooter.STATE_LOADING, loadMoreFooter.getState());
+    }
+
+    @Test
+    public void doesNotRequestNextPageAfterLoadingIfFooterIsFarAway() {
+        final int[] loads = new int[1];
+        final LoadMoreFooter loadMoreFooter = new LoadMoreFooter(new View(context),
+                new LoadMoreFooter.StateBinder() {
+                    @Override
+                    public void bind(@NonNull final View view, final int state) {
+                    }
+                }, new LoadMoreFooter.Callback() {
+                    @Override
+                    public void onLoadMore() {
+                        loads[0]++;
+                    }
+                });
+
+        loadMoreFooter.setPrefetchDistance(2);
+        adapter.setLoadMoreFooter(loadMoreFooter);
+
+        createAndBind(9);
+
+        for (int i = 0; i < 5; i++) {
+            innerAdapter.items.add(100 + i);
+        }
+
+        innerAdapter.notifyItemRangeInserted(10, 5);
+        loadMoreFooter.notifyLoadingFinished();
+
+        assertEquals(1, loads[0]);
+        assertEquals(LoadMoreFooter.STATE_IDLE, loadMoreFooter.getState());
+    }
+
+    private void showRecyclerView() {
+        Robolectric.setupActivity(Activity.class).setContentView(recyclerView);
+        layOut(recyclerView);
+    }
+
+    private void layOut(final RecyclerView target) {
+        final int spec = View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY);
+
+        target.measure(spec, spec);
+        target.layout(0, 0, 100, 100);
+    }
+
+    private RecyclerView.ViewHolder createAndBind(final int position) {
+        final RecyclerView.ViewHolder result =
+                adapter.createViewHolder(recyclerView, adapter.getItemViewType(position));
+
+        adapter.bindViewHolder(result, position);
+
+        return result;
+    }
+}
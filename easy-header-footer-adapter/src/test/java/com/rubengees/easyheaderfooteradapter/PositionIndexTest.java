@@ -0,0 +1,339 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link PositionIndex}. The randomized test replays the translated notifications
+ * on the combined list before each change of the inner items and checks that the result equals
+ * the combined list after the change, which is what the RecyclerView relies on.
+ *
+ * @author Ruben Gees
+ */
+public class PositionIndexTest {
+
+    private static final Object INSERTED = new Object() {
+        @Override
+        public String toString() {
+            return "INSERTED";
+        }
+    };
+
+    private final List<String> headers = new ArrayList<>();
+    private final List<String> footers = new ArrayList<>();
+    private final SectionIndex<String> sections = new SectionIndex<>();
+
+    private PositionIndex<String> positionIndex;
+
+    @Before
+    public void setUp() {
+        positionIndex = new PositionIndex<>(headers, sections, footers);
+    }
+
+    @Test
+    public void mapsPositionsOfDecorationsAndItems() {
+        headers.add("h0");
+        headers.add("h1");
+        footers.add("f0");
+        sections.add(0, "s0");
+        sections.add(2, "s1");
+
+        // Combined: [h0, h1, s0, 0, 1, s1, 2, f0]
+        assertEquals(8, positionIndex.getItemCount(3));
+        assertTrue(positionIndex.isHeader(1));
+        assertFalse(positionIndex.isHeader(2));
+        assertTrue(positionIndex.isFooter(7, 3));
+        assertFalse(positionIndex.isFooter(6, 3));
+        assertEquals(7, positionIndex.getFooterPosition(3));
+
+        assertEquals("h1", positionIndex.getDecoration(1, 3));
+        assertEquals("s0", positionIndex.getDecoration(2, 3));
+        assertEquals("s1", positionIndex.getDecoration(5, 3));
+        assertEquals("f0", positionIndex.getDecoration(7, 3));
+        assertNull(positionIndex.getDecoration(3, 3));
+
+        assertEquals(PositionIndex.NO_POSITION, positionIndex.getRealPosition(2, 3));
+        assertEquals(0, positionIndex.getRealPosition(3, 3));
+        assertEquals(2, positionIndex.getRealPosition(6, 3));
+        assertEquals(3, positionIndex.getDelegatedPosition(0));
+        assertEquals(6, positionIndex.getDelegatedPosition(2));
+    }
+
+    @Test
+    public void findsStickyPositions() {
+        headers.add("h0");
+        sections.add(2, "s0");
+        sections.add(4, "s1");
+
+        // Combined: [h0, 0, 1, s0, 2, 3, s1, 4]
+        assertEquals(PositionIndex.NO_POSITION, positionIndex.findStickyPosition(-1));
+        assertEquals(0, positionIndex.findStickyPosition(0));
+        assertEquals(0, positionIndex.findStickyPosition(2));
+        assertEquals(3, positionIndex.findStickyPosition(3));
+        assertEquals(3, positionIndex.findStickyPosition(5));
+        assertEquals(6, positionIndex.findStickyPosition(7));
+
+        assertEquals(3, positionIndex.findNextStickyPosition(0));
+        assertEquals(6, positionIndex.findNextStickyPosition(3));
+        assertEquals(PositionIndex.NO_POSITION, positionIndex.findNextStickyPosition(6));
+    }
+
+    @Test
+    public void findStickyPositionWithoutHeadersBeforeFirstSection() {
+        sections.add(2, "s0");
+
+        assertEquals(PositionIndex.NO_POSITION, positionIndex.findStickyPosition(1));
+        assertEquals(2, positionIndex.findStickyPosition(2));
+    }
+
+    @Test
+    public void removedRangeIsSplitAroundSections() {
+        sections.add(2, "s0");
+
+        final RecordingCallback callback = new RecordingCallback();
+
+        // Combined: [0, 1, s0, 2, 3]. Removing 1 and 2 keeps the section between them.
+        positionIndex.dispatchRemoved(1, 2, callback);
+
+        assertEquals("removed 3 1, removed 1 1", callback.toString());
+        assertEquals(1, sections.getInnerPosition(0));
+    }
+
+    @Test
+    public void changedRangeIsSplitAroundSections() {
+        headers.add("h0");
+        sections.add(2, "s0");
+
+        final RecordingCallback callback = new RecordingCallback();
+
+        positionIndex.dispatchChanged(0, 4, null, callback);
+
+        assertEquals("changed 1 2, changed 4 2", callback.toString());
+    }
+
+    @Test
+    public void movedRangeIsSplitIntoSingleMoves() {
+        final RecordingCallback callback = new RecordingCallback();
+
+        positionIndex.dispatchMoved(0, 3, 2, callback);
+
+        assertEquals("moved 0 4, moved 0 4", callback.toString());
+    }
+
+    @Test
+    public void randomNotificationsReplayToNewList() {
+        final Random random = new Random(1337);
+        final List<Integer> items = new ArrayList<>();
+        int nextId = 0;
+
+        for (int i = 0; i < 3; i++) {
+            headers.add("h" + i);
+            footers.add("f" + i);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            items.add(nextId++);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            sections.add(random.nextInt(items.size() + 1), "s" + i);
+        }
+
+        for (int step = 0; step < 3000; step++) {
+            final List<Object> oldList = buildCombinedList(items);
+            final RecordingCallback callback = new RecordingCallback(oldList);
+            final Set<Integer> allowedNew = new HashSet<>();
+            final int operation = random.nextInt(4);
+
+            if (operation == 0 || items.size() < 5) {
+                final int position = random.nextInt(items.size() + 1);
+                final int count = 1 + random.nextInt(5);
+
+                for (int i = 0; i < count; i++) {
+                    allowedNew.add(nextId);
+                    items.add(position + i, nextId++);
+                }
+
+                positionIndex.dispatchInserted(position, count, callback);
+            } else if (operation == 1) {
+                final int position = random.nextInt(items.size());
+                final int count = 1 + random.nextInt(Math.min(5, items.size() - position));
+
+                items.subList(position, position + count).clear();
+                positionIndex.dispatchRemoved(position, count, callback);
+            } else if (operation == 2) {
+                final int count = 1 + random.nextInt(3);
+                final int from = random.nextInt(items.size() - count + 1);
+                final int to = random.nextInt(items.size() - count + 1);
+                final List<Integer> block = new ArrayList<>(items.subList(from, from + count));
+
+                items.subList(from, from + count).clear();
+                items.addAll(to, block);
+                allowedNew.addAll(block);
+
+                positionIndex.dispatchMoved(from, to, count, callback);
+            } else {
+                final int position = random.nextInt(items.size());
+                final int count = 1 + random.nextInt(Math.min(5, items.size() - position));
+
+                positionIndex.dispatchChanged(position, count, null, callback);
+
+                assertEquals(new HashSet<>(items.subList(position, position + count)),
+                        callback.changed);
+            }
+
+            assertReplayed(callback.list, buildCombinedList(items), allowedNew);
+            assertMapping(items);
+        }
+    }
+
+    private List<Object> buildCombinedList(final List<Integer> items) {
+        final List<Object> result = new ArrayList<Object>(headers);
+        int sectionIndex = 0;
+
+        for (int innerPosition = 0; innerPosition <= items.size(); innerPosition++) {
+            while (sectionIndex < sections.size()
+                    && sections.getInnerPosition(sectionIndex) == innerPosition) {
+                result.add(sections.get(sectionIndex++));
+            }
+
+            if (innerPosition < items.size()) {
+                result.add(items.get(innerPosition));
+            }
+        }
+
+        assertEquals("A section is after the last item", sections.size(), sectionIndex);
+
+        result.addAll(footers);
+
+        return result;
+    }
+
+    private static void assertReplayed(final List<Object> replayed, final List<Object> expected,
+                                       final Set<Integer> allowedNew) {
+        assertEquals(expected.size(), replayed.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            // Moves across sections are translated into a removal and an insertion.
+            if (replayed.get(i) == INSERTED) {
+                assertTrue("Unexpected insertion at " + i + ": " + expected.get(i),
+                        allowedNew.contains(expected.get(i)));
+            } else {
+                assertEquals("Mismatch at " + i, expected.get(i), replayed.get(i));
+            }
+        }
+    }
+
+    private void assertMapping(final List<Integer> items) {
+        final List<Object> combined = buildCombinedList(items);
+
+        assertEquals(combined.size(), positionIndex.getItemCount(items.size()));
+
+        for (int position = 0; position < combined.size(); position++) {
+            final Object value = combined.get(position);
+
+            if (value instanceof Integer) {
+                final int realPosition = positionIndex.getRealPosition(position, items.size());
+
+                assertEquals(value, items.get(realPosition));
+                assertEquals(position, positionIndex.getDelegatedPosition(realPosition));
+                assertNull(positionIndex.getDecoration(position, items.size()));
+            } else {
+                assertEquals(value, positionIndex.getDecoration(position, items.size()));
+            }
+        }
+    }
+
+    /**
+     * Applies the notifications to a copy of a list and records them.
+     */
+    private static final class RecordingCallback implements PositionIndex.UpdateCallback {
+
+        final List<Object> list;
+        final Set<Object> changed = new HashSet<>();
+        private final StringBuilder log = new StringBuilder();
+
+        RecordingCallback() {
+            this(new ArrayList<>());
+        }
+
+        RecordingCallback(final List<Object> list) {
+            this.list = new ArrayList<>(list);
+        }
+
+        @Override
+        public void onInserted(final int position, final int count) {
+            append("inserted " + position + " " + count);
+
+            for (int i = 0; i < count; i++) {
+                list.add(position, INSERTED);
+            }
+        }
+
+        @Override
+        public void onRemoved(final int position, final int count) {
+            append("removed " + position + " " + count);
+
+            if (!list.isEmpty()) {
+                final List<Object> removed = list.subList(position, position + count);
+
+                for (final Object value : removed) {
+                    assertTrue("Removed a decoration: " + value,
+                            value instanceof Integer || value == INSERTED);
+                }
+
+                removed.clear();
+            }
+        }
+
+        @Override
+        public void onMoved(final int fromPosition, final int toPosition) {
+            append("moved " + fromPosition + " " + toPosition);
+
+            if (!list.isEmpty()) {
+                final Object value = list.remove(fromPosition);
+
+                assertTrue("Moved a decoration: " + value, value instanceof Integer);
+
+                list.add(toPosition, value);
+            }
+        }
+
+        @Override
+        public void onChanged(final int position, final int count, final Object payload) {
+            append("changed " + position + " " + count);
+
+            if (!list.isEmpty()) {
+                for (final Object value : list.subList(position, position + count)) {
+                    assertTrue("Changed a decoration: " + value, value instanceof Integer);
+
+                    changed.add(value);
+                }
+            }
+        }
+
+        private void append(final String entry) {
+            if (log.length() > 0) {
+                log.append(", ");
+            }
+
+            log.append(entry);
+        }
+
+        @Override
+        public String toString() {
+            return log.toString();
+        }
+    }
+}
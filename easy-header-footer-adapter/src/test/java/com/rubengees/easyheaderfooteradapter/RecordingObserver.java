@@ -0,0 +1,73 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Observer for the tests, which records all notifications of an adapter in a readable form.
+ *
+ * @author Ruben Gees
+ */
+class RecordingObserver extends RecyclerView.AdapterDataObserver {
+
+    final List<String> events = new ArrayList<>();
+    int changedItemCount;
+
+    @Override
+    public void onChanged() {
+        events.add("changed");
+    }
+
+    @Override
+    public void onItemRangeChanged(final int positionStart, final int itemCount) {
+        onItemRangeChanged(positionStart, itemCount, null);
+    }
+
+    @Override
+    public void onItemRangeChanged(final int positionStart, final int itemCount,
+                                   final Object payload) {
+        changedItemCount += itemCount;
+
+        events.add("changed " + positionStart + " " + itemCount
+                + (payload == null ? "" : " " + payload));
+    }
+
+    @Override
+    public void onItemRangeInserted(final int positionStart, final int itemCount) {
+        events.add("inserted " + positionStart + " " + itemCount);
+    }
+
+    @Override
+    public void onItemRangeRemoved(final int positionStart, final int itemCount) {
+        events.add("removed " + positionStart + " " + itemCount);
+    }
+
+    @Override
+    public void onItemRangeMoved(final int fromPosition, final int toPosition,
+                                 final int itemCount) {
+        events.add("moved " + fromPosition + " " + toPosition + " " + itemCount);
+    }
+
+    /**
+     * Returns the recorded events and clears them.
+     *
+     * @return The events, separated by commas.
+     */
+    String take() {
+        final StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < events.size(); i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+
+            result.append(events.get(i));
+        }
+
+        events.clear();
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,325 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.content.Context;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scrolls through a large wrapped adapter with each LayoutManager, while the inner data, the
+ * headers and the footers change in random bursts. Fails if the amount of created and bound
+ * ViewHolders or of layout passes exceeds what the visible area requires, or if a visible item
+ * shows the wrong data.
+ * <p>
+ * The RecyclerView is measured and laid out manually. A layout pass is only run if the
+ * RecyclerView requested one, like the Choreographer would do on a device.
+ *
+ * @author Ruben Gees
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 25)
+public class ScrollBudgetTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int SPAN_COUNT = 3;
+
+    private static final int ITEM_COUNT = 100000;
+    private static final int HEADER_COUNT = 3;
+    private static final int FOOTER_COUNT = 2;
+    private static final int SECTION_COUNT = 50;
+    private static final int DECORATION_HEIGHT = 150;
+
+    private static final int SCROLL_STEPS = 600;
+    private static final int SCROLL_DISTANCE = TestAdapter.ITEM_HEIGHT / 2;
+    private static final int JUMP_INTERVAL = 100;
+    private static final int BURST_INTERVAL = 20;
+    private static final int BURST_SIZE = 5;
+
+    private static final int KIND_LINEAR = 0;
+    private static final int KIND_GRID = 1;
+    private static final int KIND_STAGGERED = 2;
+
+    private final int layoutManagerKind;
+    private final boolean dedicatedViewTypes;
+
+    private final Random random = new Random(2017);
+
+    private Context context;
+    private TestAdapter innerAdapter;
+    private EasyHeaderFooterAdapter adapter;
+    private RecyclerView recyclerView;
+    private final AdapterMetrics metrics = new AdapterMetrics();
+    private final RecordingObserver observer = new RecordingObserver();
+
+    private int layoutChildrenCount;
+    private int requestedLayoutCount;
+    private int attachCount;
+    private int maxChildCount;
+    private int jumpCount;
+    private int burstCount;
+    private int addedDecorationCount;
+    private int nextItem = ITEM_COUNT;
+
+    public ScrollBudgetTest(final String name, final int layoutManagerKind,
+                            final boolean dedicatedViewTypes) {
+        this.layoutManagerKind = layoutManagerKind;
+        this.dedicatedViewTypes = dedicatedViewTypes;
+    }
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{
+                {"linear", KIND_LINEAR, false},
+                {"linear, dedicated view types", KIND_LINEAR, true},
+                {"grid", KIND_GRID, false},
+                {"grid, dedicated view types", KIND_GRID, true},
+                {"staggered", KIND_STAGGERED, false},
+                {"staggered, dedicated view types", KIND_STAGGERED, true},
+        });
+    }
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.application;
+        innerAdapter = new TestAdapter(ITEM_COUNT);
+        adapter = new EasyHeaderFooterAdapter(innerAdapter);
+        recyclerView = new RecyclerView(context);
+
+        adapter.setDedicatedViewTypesEnabled(dedicatedViewTypes);
+        adapter.setMetricsListener(metrics);
+
+        for (int i = 0; i < HEADER_COUNT; i++) {
+            adapter.addHeader(newDecorationView());
+        }
+
+        for (int i = 0; i < FOOTER_COUNT; i++) {
+            adapter.addFooter(newDecorationView());
+        }
+
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            adapter.addSection(ITEM_COUNT / SECTION_COUNT * i, newDecorationView());
+        }
+
+        recyclerView.setItemAnimator(null);
+        recyclerView.setLayoutManager(createLayoutManager());
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnChildAttachStateChangeListener(
+                new RecyclerView.OnChildAttachStateChangeListener() {
+                    @Override
+                    public void onChildViewAttachedToWindow(final View view) {
+                        attachCount++;
+                    }
+
+                    @Override
+                    public void onChildViewDetachedFromWindow(final View view) {
+                    }
+                });
+
+        adapter.registerAdapterDataObserver(observer);
+    }
+
+    @Test
+    public void staysWithinBudgets() {
+        frame();
+
+        for (int step = 1; step <= SCROLL_STEPS; step++) {
+            if (step % JUMP_INTERVAL == 0) {
+                jump();
+            } else if (step % BURST_INTERVAL == 0) {
+                burst();
+            } else {
+                // Mostly scroll down, but also back up to reuse the cached Views.
+                recyclerView.scrollBy(0, step % 7 == 0 ? -SCROLL_DISTANCE : SCROLL_DISTANCE);
+            }
+
+            frame();
+            assertVisibleItemsAreBound();
+        }
+
+        final int allowedLayouts = 1 + jumpCount + burstCount;
+        final int itemSlack = SPAN_COUNT * 3 + 2;
+        final long itemCreateCount = metrics.getCreateCount(MetricsListener.KIND_ITEM);
+        final long decorationCreateCount = metrics.getTotalCreateCount() - itemCreateCount;
+
+        assertEquals("notifyDataSetChanged() has been called", 0,
+                metrics.getDataSetChangedCount());
+        assertTrue("Layout was requested " + requestedLayoutCount + " times, allowed are "
+                + allowedLayouts, requestedLayoutCount <= allowedLayouts);
+        assertTrue("The LayoutManager laid out " + layoutChildrenCount + " times in "
+                + requestedLayoutCount + " layout passes",
+                layoutChildrenCount <= requestedLayoutCount);
+        assertTrue("Created " + itemCreateCount + " items for at most " + maxChildCount
+                        + " visible Views and " + jumpCount + " jumps",
+                itemCreateCount <= (jumpCount + 1) * (maxChildCount + itemSlack));
+        assertTrue("Created " + decorationCreateCount + " headers, footers and sections for "
+                        + addedDecorationCount + " added ones",
+                decorationCreateCount <= addedDecorationCount + 2);
+        assertTrue("Bound " + metrics.getTotalBindCount() + " times for " + attachCount
+                        + " attached Views and " + observer.changedItemCount + " changed items",
+                metrics.getTotalBindCount() <= attachCount + observer.changedItemCount);
+    }
+
+    private RecyclerView.LayoutManager createLayoutManager() {
+        switch (layoutManagerKind) {
+            case KIND_LINEAR:
+                return new LinearLayoutManager(context) {
+                    @Override
+                    public void onLayoutChildren(final RecyclerView.Recycler recycler,
+                                                 final RecyclerView.State state) {
+                        layoutChildrenCount++;
+
+                        super.onLayoutChildren(recycler, state);
+                    }
+                };
+            case KIND_GRID:
+                return new GridLayoutManager(context, SPAN_COUNT) {
+                    @Override
+                    public void onLayoutChildren(final RecyclerView.Recycler recycler,
+                                                 final RecyclerView.State state) {
+                        layoutChildrenCount++;
+
+                        super.onLayoutChildren(recycler, state);
+                    }
+                };
+            case KIND_STAGGERED:
+                return new StaggeredGridLayoutManager(SPAN_COUNT,
+                        StaggeredGridLayoutManager.VERTICAL) {
+                    @Override
+                    public void onLayoutChildren(final RecyclerView.Recycler recycler,
+                                                 final RecyclerView.State state) {
+                        layoutChildrenCount++;
+
+                        super.onLayoutChildren(recycler, state);
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown kind: " + layoutManagerKind);
+        }
+    }
+
+    private View newDecorationView() {
+        final View result = new View(context);
+
+        result.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                DECORATION_HEIGHT));
+
+        addedDecorationCount++;
+
+        return result;
+    }
+
+    /**
+     * Lays out the RecyclerView if it requested it, like the next frame would.
+     */
+    private void frame() {
+        if (recyclerView.isLayoutRequested()) {
+            requestedLayoutCount++;
+
+            recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            recyclerView.layout(0, 0, WIDTH, HEIGHT);
+        }
+
+        maxChildCount = Math.max(maxChildCount, recyclerView.getChildCount());
+    }
+
+    private void jump() {
+        jumpCount++;
+
+        recyclerView.scrollToPosition(random.nextInt(adapter.getItemCount()));
+    }
+
+    private void burst() {
+        burstCount++;
+
+        final int base = Math.max(0, adapter.getRealPosition(findFirstVisiblePosition()));
+
+        for (int i = 0; i < BURST_SIZE; i++) {
+            final int position = Math.min(base + random.nextInt(30),
+                    innerAdapter.items.size() - 1);
+            final int count = 1 + random.nextInt(3);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    for (int j = 0; j < count; j++) {
+                        innerAdapter.items.add(position, nextItem++);
+                    }
+
+                    innerAdapter.notifyItemRangeInserted(position, count);
+                    break;
+                case 1:
+                    final int removedCount = Math.min(count, innerAdapter.items.size() - position);
+
+                    innerAdapter.items.subList(position, position + removedCount).clear();
+                    innerAdapter.notifyItemRangeRemoved(position, removedCount);
+                    break;
+                case 2:
+                    final int toPosition = Math.min(position + random.nextInt(10),
+                            innerAdapter.items.size() - 1);
+
+                    innerAdapter.items.add(toPosition, innerAdapter.items.remove(position));
+                    innerAdapter.notifyItemMoved(position, toPosition);
+                    break;
+                default:
+                    innerAdapter.notifyItemRangeChanged(position, 1);
+                    break;
+            }
+        }
+
+        // Headers and footers change too, the payload keeps the header in place.
+        adapter.notifyHeaderChanged(random.nextInt(HEADER_COUNT), "payload");
+
+        if (burstCount % 2 == 0) {
+            adapter.addFooter(newDecorationView());
+        } else if (adapter.getFooterCount() > FOOTER_COUNT) {
+            adapter.removeFooter(adapter.getFooterCount() - 1);
+        }
+    }
+
+    private int findFirstVisiblePosition() {
+        int result = Integer.MAX_VALUE;
+
+        for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            result = Math.min(result,
+                    recyclerView.getChildAdapterPosition(recyclerView.getChildAt(i)));
+        }
+
+        return result == Integer.MAX_VALUE ? 0 : result;
+    }
+
+    private void assertVisibleItemsAreBound() {
+        for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            final RecyclerView.ViewHolder holder =
+                    recyclerView.getChildViewHolder(recyclerView.getChildAt(i));
+
+            if (holder instanceof TestAdapter.ViewHolder) {
+                final int realPosition = adapter.getRealPosition(holder.getAdapterPosition());
+
+                assertEquals("Wrong item at " + holder.getAdapterPosition(),
+                        (int) innerAdapter.items.get(realPosition),
+                        ((TestAdapter.ViewHolder) holder).value);
+            } else {
+                assertTrue("Item bound as decoration at " + holder.getAdapterPosition(),
+                        adapter.isDecoration(holder.getAdapterPosition()));
+            }
+        }
+    }
+}
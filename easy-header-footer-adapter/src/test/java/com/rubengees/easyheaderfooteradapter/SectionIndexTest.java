@@ -0,0 +1,252 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link SectionIndex}. The randomized test compares all lookups with a naive
+ * model, which is a list of the inner positions of the sections.
+ *
+ * @author Ruben Gees
+ */
+public class SectionIndexTest {
+
+    private SectionIndex<String> sections;
+
+    @Before
+    public void setUp() {
+        sections = new SectionIndex<>();
+    }
+
+    @Test
+    public void addKeepsSectionsSortedByPosition() {
+        assertEquals(0, sections.add(10, "b"));
+        assertEquals(0, sections.add(0, "a"));
+        assertEquals(2, sections.add(20, "c"));
+
+        assertEquals("a", sections.get(0));
+        assertEquals("b", sections.get(1));
+        assertEquals("c", sections.get(2));
+        assertArrayEquals(new int[]{0, 11, 22}, sections.copyBodyPositions());
+    }
+
+    @Test
+    public void addAtSamePositionAppendsAfterExisting() {
+        sections.add(5, "a");
+
+        assertEquals(1, sections.add(5, "b"));
+        assertEquals("a", sections.get(0));
+        assertEquals("b", sections.get(1));
+        assertEquals(5, sections.getBodyPosition(0));
+        assertEquals(6, sections.getBodyPosition(1));
+    }
+
+    @Test
+    public void addGrowsBeyondInitialCapacity() {
+        for (int i = 0; i < 100; i++) {
+            sections.add(i, String.valueOf(i));
+        }
+
+        assertEquals(100, sections.size());
+        assertEquals("99", sections.get(99));
+        assertEquals(99 * 2, sections.getBodyPosition(99));
+    }
+
+    @Test
+    public void removeReturnsValueAndShiftsFollowingSections() {
+        sections.add(0, "a");
+        sections.add(5, "b");
+        sections.add(10, "c");
+
+        assertEquals("b", sections.remove(1));
+        assertEquals(2, sections.size());
+        assertEquals("c", sections.get(1));
+        assertEquals(11, sections.getBodyPosition(1));
+    }
+
+    @Test
+    public void mapsBetweenInnerAndBodyPositions() {
+        sections.add(0, "a");
+        sections.add(3, "b");
+
+        // Body: [a, 0, 1, 2, b, 3, 4]
+        assertEquals(-1, sections.toInnerPosition(0));
+        assertEquals(0, sections.toInnerPosition(1));
+        assertEquals(2, sections.toInnerPosition(3));
+        assertEquals(-1, sections.toInnerPosition(4));
+        assertEquals(3, sections.toInnerPosition(5));
+
+        assertEquals(1, sections.toBodyPosition(0));
+        assertEquals(5, sections.toBodyPosition(3));
+
+        assertEquals(0, sections.indexAt(0));
+        assertEquals(-1, sections.indexAt(1));
+        assertEquals(1, sections.indexAt(4));
+
+        assertEquals(-1, sections.floorIndex(-1));
+        assertEquals(0, sections.floorIndex(3));
+        assertEquals(1, sections.floorIndex(6));
+    }
+
+    @Test
+    public void onInsertedKeepsSectionAtPositionBeforeInsertedItems() {
+        sections.add(5, "a");
+        sections.add(10, "b");
+
+        sections.onInserted(5, 3);
+
+        assertEquals(5, sections.getInnerPosition(0));
+        assertEquals(13, sections.getInnerPosition(1));
+
+        sections.onInserted(0, 1);
+
+        assertEquals(6, sections.getInnerPosition(0));
+    }
+
+    @Test
+    public void onRemovedMovesSectionsWithinRangeToItsStart() {
+        sections.add(2, "a");
+        sections.add(5, "b");
+        sections.add(10, "c");
+
+        sections.onRemoved(3, 5);
+
+        assertEquals(2, sections.getInnerPosition(0));
+        assertEquals(3, sections.getInnerPosition(1));
+        assertEquals(5, sections.getInnerPosition(2));
+    }
+
+    @Test
+    public void clampMovesSectionsAfterPositionToIt() {
+        sections.add(2, "a");
+        sections.add(5, "b");
+        sections.add(10, "c");
+
+        sections.clamp(4);
+
+        assertEquals(2, sections.getInnerPosition(0));
+        assertEquals(4, sections.getInnerPosition(1));
+        assertEquals(4, sections.getInnerPosition(2));
+    }
+
+    @Test
+    public void hasSectionIn() {
+        sections.add(5, "a");
+
+        assertTrue(sections.hasSectionIn(4, 5));
+        assertTrue(sections.hasSectionIn(0, 10));
+        assertFalse(sections.hasSectionIn(5, 10));
+        assertFalse(sections.hasSectionIn(0, 4));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfBounds() {
+        sections.add(0, "a");
+
+        sections.get(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void removeOutOfBounds() {
+        sections.remove(0);
+    }
+
+    @Test
+    public void randomOperationsMatchNaiveModel() {
+        final Random random = new Random(42);
+        final List<Integer> model = new ArrayList<>();
+        int itemCount = 100;
+
+        for (int step = 0; step < 5000; step++) {
+            final int operation = random.nextInt(5);
+
+            if (operation == 0) {
+                final int position = random.nextInt(itemCount + 1);
+                final int index = sections.add(position, "s");
+                int expectedIndex = 0;
+
+                while (expectedIndex < model.size() && model.get(expectedIndex) <= position) {
+                    expectedIndex++;
+                }
+
+                model.add(expectedIndex, position);
+                assertEquals(expectedIndex, index);
+            } else if (operation == 1 && !model.isEmpty()) {
+                final int index = random.nextInt(model.size());
+
+                sections.remove(index);
+                model.remove(index);
+            } else if (operation == 2) {
+                final int position = random.nextInt(itemCount + 1);
+                final int count = 1 + random.nextInt(10);
+
+                sections.onInserted(position, count);
+                itemCount += count;
+
+                for (int i = 0; i < model.size(); i++) {
+                    if (model.get(i) > position) {
+                        model.set(i, model.get(i) + count);
+                    }
+                }
+            } else if (operation == 3 && itemCount > 0) {
+                final int position = random.nextInt(itemCount);
+                final int count = 1 + random.nextInt(Math.min(10, itemCount - position));
+
+                sections.onRemoved(position, count);
+                itemCount -= count;
+
+                for (int i = 0; i < model.size(); i++) {
+                    if (model.get(i) > position) {
+                        model.set(i, Math.max(position, model.get(i) - count));
+                    }
+                }
+            } else {
+                assertMatchesModel(model, itemCount);
+            }
+        }
+
+        assertMatchesModel(model, itemCount);
+    }
+
+    private void assertMatchesModel(final List<Integer> model, final int itemCount) {
+        assertEquals(model.size(), sections.size());
+
+        // Build the body naively: each section is shown before the item at its position.
+        final List<Integer> body = new ArrayList<>();
+        int sectionIndex = 0;
+
+        for (int innerPosition = 0; innerPosition <= itemCount; innerPosition++) {
+            while (sectionIndex < model.size() && model.get(sectionIndex) == innerPosition) {
+                body.add(-1 - sectionIndex);
+                sectionIndex++;
+            }
+
+            if (innerPosition < itemCount) {
+                body.add(innerPosition);
+            }
+        }
+
+        for (int bodyPosition = 0; bodyPosition < body.size(); bodyPosition++) {
+            final int value = body.get(bodyPosition);
+
+            if (value < 0) {
+                assertEquals(-1 - value, sections.indexAt(bodyPosition));
+                assertEquals(-1, sections.toInnerPosition(bodyPosition));
+                assertEquals(bodyPosition, sections.getBodyPosition(-1 - value));
+            } else {
+                assertEquals(-1, sections.indexAt(bodyPosition));
+                assertEquals(value, sections.toInnerPosition(bodyPosition));
+                assertEquals(bodyPosition, sections.toBodyPosition(value));
+            }
+        }
+    }
+}
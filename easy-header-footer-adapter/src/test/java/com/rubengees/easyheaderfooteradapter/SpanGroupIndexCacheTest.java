@@ -0,0 +1,136 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link SpanGroupIndexCache}, which is compared with the uncached algorithm of the
+ * GridLayoutManager.
+ *
+ * @author Ruben Gees
+ */
+public class SpanGroupIndexCacheTest {
+
+    private final List<Integer> spanSizes = new ArrayList<>();
+    private final SpanGroupIndexCache cache =
+            new SpanGroupIndexCache(new SpanGroupIndexCache.SpanSizeProvider() {
+                @Override
+                public int getSpanSize(final int position) {
+                    return spanSizes.get(position);
+                }
+            });
+
+    @Test
+    public void fullWidthDecorationsStartNewGroups() {
+        // A header, five items in a grid of three and a footer.
+        addSpanSizes(3, 1, 1, 1, 1, 1, 3);
+
+        assertEquals(0, cache.getSpanGroupIndex(0, 3));
+        assertEquals(1, cache.getSpanGroupIndex(1, 3));
+        assertEquals(1, cache.getSpanGroupIndex(3, 3));
+        assertEquals(2, cache.getSpanGroupIndex(4, 3));
+        assertEquals(3, cache.getSpanGroupIndex(6, 3));
+    }
+
+    @Test
+    public void invalidateFromKeepsEarlierValues() {
+        addSpanSizes(1, 1, 1, 1, 1, 1);
+
+        assertEquals(1, cache.getSpanGroupIndex(5, 3));
+
+        spanSizes.set(4, 3);
+        cache.invalidateFrom(4);
+
+        assertEquals(1, cache.getSpanGroupIndex(3, 3));
+        assertEquals(2, cache.getSpanGroupIndex(4, 3));
+        assertEquals(3, cache.getSpanGroupIndex(5, 3));
+    }
+
+    @Test
+    public void spanCountChangeResetsCache() {
+        addSpanSizes(1, 1, 1, 1);
+
+        assertEquals(1, cache.getSpanGroupIndex(3, 3));
+        assertEquals(1, cache.getSpanGroupIndex(3, 2));
+        assertEquals(3, cache.getSpanGroupIndex(3, 1));
+    }
+
+    @Test
+    public void randomChangesMatchUncachedAlgorithm() {
+        final Random random = new Random(7);
+        int spanCount = 4;
+
+        for (int i = 0; i < 500; i++) {
+            spanSizes.add(1 + random.nextInt(spanCount));
+        }
+
+        for (int step = 0; step < 2000; step++) {
+            final int operation = random.nextInt(10);
+
+            if (operation == 0) {
+                // The span sizes must fit into the new span count.
+                spanCount = 4 + random.nextInt(3);
+            } else if (operation < 4) {
+                final int position = random.nextInt(spanSizes.size());
+
+                spanSizes.set(position, 1 + random.nextInt(4));
+                cache.invalidateFrom(position);
+            } else if (operation == 4) {
+                final int position = random.nextInt(spanSizes.size() + 1);
+
+                spanSizes.add(position, 1 + random.nextInt(4));
+                cache.invalidateFrom(position);
+            } else if (operation == 5 && spanSizes.size() > 1) {
+                final int position = random.nextInt(spanSizes.size());
+
+                spanSizes.remove(position);
+                cache.invalidateFrom(position);
+            }
+
+            final int position = random.nextInt(spanSizes.size());
+
+            assertEquals("Position " + position + " in step " + step,
+                    uncachedSpanGroupIndex(position, spanCount),
+                    cache.getSpanGroupIndex(position, spanCount));
+        }
+    }
+
+    private void addSpanSizes(final int... values) {
+        for (final int value : values) {
+            spanSizes.add(value);
+        }
+    }
+
+    /**
+     * The algorithm of GridLayoutManager.SpanSizeLookup#getSpanGroupIndex.
+     */
+    private int uncachedSpanGroupIndex(final int position, final int spanCount) {
+        int span = 0;
+        int group = 0;
+
+        for (int i = 0; i < position; i++) {
+            final int size = spanSizes.get(i);
+
+            span += size;
+
+            if (span == spanCount) {
+                span = 0;
+                group++;
+            } else if (span > spanCount) {
+                span = size;
+                group++;
+            }
+        }
+
+        if (span + spanSizes.get(position) > spanCount) {
+            group++;
+        }
+
+        return group;
+    }
+}
@@ -0,0 +1,92 @@
+package com.rubengees.easyheaderfooteradapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simple adapter for the tests, which shows a list of numbers. The items have a fixed height,
+ * so that the LayoutManagers produce deterministic layouts.
+ *
+ * @author Ruben Gees
+ */
+class TestAdapter extends RecyclerView.Adapter<TestAdapter.ViewHolder> {
+
+    static final int ITEM_HEIGHT = 100;
+
+    final List<Integer> items = new ArrayList<>();
+
+    int createCount;
+    int bindCount;
+    List<Object> lastPayloads;
+
+    private final int viewTypeCount;
+
+    TestAdapter(final int itemCount) {
+        this(itemCount, 1, false);
+    }
+
+    TestAdapter(final int itemCount, final int viewTypeCount, final boolean stableIds) {
+        this.viewTypeCount = viewTypeCount;
+
+        for (int i = 0; i < itemCount; i++) {
+            items.add(i);
+        }
+
+        setHasStableIds(stableIds);
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(final ViewGroup parent, final int viewType) {
+        final View view = new View(parent.getContext());
+
+        view.setLayoutParams(new RecyclerView.LayoutParams(
+                RecyclerView.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+
+        createCount++;
+
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(final ViewHolder holder, final int position) {
+        bindCount++;
+        lastPayloads = null;
+        holder.value = items.get(position);
+    }
+
+    @Override
+    public void onBindViewHolder(final ViewHolder holder, final int position,
+                                 final List<Object> payloads) {
+        onBindViewHolder(holder, position);
+
+        lastPayloads = payloads;
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    @Override
+    public int getItemViewType(final int position) {
+        return items.get(position) % viewTypeCount;
+    }
+
+    @Override
+    public long getItemId(final int position) {
+        return items.get(position);
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+
+        int value;
+
+        ViewHolder(final View itemView) {
+            super(itemView);
+        }
+    }
+}